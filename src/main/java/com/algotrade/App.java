@@ -38,7 +38,8 @@ public class App {
         OrderExecutor delegateExecutor = new ExchangeOrderExecutor(exchange, positionManager, tradeMetrics, latencyMetrics);
 
         // The throttler wraps the actual executor to control the rate of orders
-        OrderExecutor orderExecutor = new ExecutionThrottler(delegateExecutor, 5, 1000); // 5 orders per 1 second
+        ExecutionThrottler orderExecutor = new ExecutionThrottler(delegateExecutor, 5, 1000); // 5 orders per 1 second
+        orderExecutor.setDropListener(positionManager::release); // Frees the position reserved by the risk check
 
         // --- 4. Assemble the TradingPipeline ---
         TradingPipeline pipeline = new TradingPipeline(meanReversionStrategy, riskManager, orderExecutor, exchange, tradeMetrics, latencyMetrics);
@@ -8,9 +8,9 @@ import com.algotrade.risk.MaxPositionRiskManager;
 import com.algotrade.risk.PositionManager;
 import com.algotrade.simulator.LiveMarketDataProvider;
 import com.algotrade.strategy.MeanReversionStrategy;
+import com.algotrade.util.ThreadMode;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Entry point for real-time trading simulation using live Binance data.
@@ -29,6 +29,7 @@ public class RealTimeTrader {
         System.out.println("--- Initializing Real-Time Trading Simulation ---");
 
         symbol = "BTCUSDT";  // Binance symbol
+        ThreadMode threadMode = ThreadMode.configured(); // -Dalgotrade.threads=virtual on JDK 21+
         Exchange exchange = new Exchange();
         exchange.addSymbol(symbol);
 
@@ -47,14 +48,15 @@ public class RealTimeTrader {
 
         // Execution
         OrderExecutor delegateExecutor = new ExchangeOrderExecutor(exchange, positionManager, tradeMetrics, latencyMetrics);
-        OrderExecutor orderExecutor = new ExecutionThrottler(delegateExecutor, 5, 1000);  // 5/sec
+        ExecutionThrottler orderExecutor = new ExecutionThrottler(delegateExecutor, 5, 1000);  // 5/sec
+        orderExecutor.setDropListener(positionManager::release); // Frees the position reserved by the risk check
 
         // Pipeline
-        pipeline = new TradingPipeline(strategy, riskManager, orderExecutor, exchange, tradeMetrics, latencyMetrics);
+        pipeline = new TradingPipeline(strategy, riskManager, orderExecutor, exchange, tradeMetrics, latencyMetrics, threadMode);
 
         // Live data provider
         liveProvider = new LiveMarketDataProvider(symbol, pipeline);
-        dataExecutor = Executors.newSingleThreadExecutor();
+        dataExecutor = threadMode.newThreadPerTaskExecutor("feed"); // One thread per subscription
         dataExecutor.submit(liveProvider);
 
         System.out.println("Real-time simulation running for " + symbol + ". Press Ctrl+C to stop.");
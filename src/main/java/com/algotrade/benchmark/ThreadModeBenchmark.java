@@ -0,0 +1,73 @@
+package com.algotrade.benchmark;
+
+import com.algotrade.model.MarketData;
+import com.algotrade.pipeline.MarketDataStream;
+import com.algotrade.strategy.MeanReversionStrategy;
+import com.algotrade.util.ThreadMode;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares platform and virtual threads with one {@link MarketDataStream} and one
+ * strategy instance per feed. Reports wall time, throughput and peak JVM thread count.
+ * <pre>
+ * mvn -Pjdk21 compile exec:java -Dexec.mainClass=com.algotrade.benchmark.ThreadModeBenchmark -Dexec.args="2000 500"
+ * </pre>
+ * Arguments: number of feeds (default 1000), ticks per feed (default 1000).
+ */
+public class ThreadModeBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int feeds = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int ticksPerFeed = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        for (ThreadMode mode : ThreadMode.values()) {
+            if (mode == ThreadMode.VIRTUAL && !ThreadMode.isVirtualSupported()) {
+                System.out.println(mode + ": skipped, needs JDK 21+ (running " + Runtime.version() + ")");
+                continue;
+            }
+            run(mode, feeds, ticksPerFeed / 10); // Warm-up
+            run(mode, feeds, ticksPerFeed);
+        }
+    }
+
+    private static void run(ThreadMode mode, int feeds, int ticksPerFeed) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        CountDownLatch done = new CountDownLatch(feeds * ticksPerFeed);
+        List<MarketDataStream> streams = new ArrayList<>(feeds);
+        for (int i = 0; i < feeds; i++) {
+            String symbol = "FEED" + i;
+            MeanReversionStrategy strategy = new MeanReversionStrategy(symbol, 20, 0.001, 1);
+            streams.add(new MarketDataStream(marketData -> {
+                strategy.processMarketData(marketData);
+                done.countDown();
+            }, mode));
+        }
+
+        long start = System.nanoTime();
+        for (int tick = 0; tick < ticksPerFeed; tick++) {
+            long bid = 10000 + (tick % 7);
+            for (int i = 0; i < feeds; i++) {
+                streams.get(i).publishMarketData(new MarketData("FEED" + i, bid, bid + 1, 10, 10));
+            }
+        }
+        boolean completed = done.await(5, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - start;
+        streams.forEach(MarketDataStream::shutdown);
+        if (!completed) {
+            throw new IllegalStateException(mode + ": timed out with " + done.getCount() + " of "
+                    + (long) feeds * ticksPerFeed + " events unhandled");
+        }
+
+        long events = (long) feeds * ticksPerFeed;
+        System.out.printf("%-8s feeds=%d ticks/feed=%d time=%dms throughput=%.0f events/s peakThreads=%d%n",
+                mode, feeds, ticksPerFeed, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                events * 1e9 / elapsedNanos, threads.getPeakThreadCount());
+    }
+}
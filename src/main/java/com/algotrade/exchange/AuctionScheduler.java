@@ -0,0 +1,67 @@
+package com.algotrade.exchange;
+
+import com.algotrade.logging.Component;
+import com.algotrade.logging.EventLogger;
+import com.algotrade.logging.EventType;
+import com.algotrade.logging.Level;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs periodic call auctions: a scheduled book collects orders for one interval,
+ * then a single uncross executes everything that crosses at one clearing price.
+ * One daemon thread serves all scheduled books; a failed uncross is logged and
+ * the book tries again at the next interval.
+ */
+public class AuctionScheduler {
+    private final ScheduledExecutorService scheduler;
+    private final Map<OrderBook, ScheduledFuture<?>> auctions = new ConcurrentHashMap<>();
+    private final EventLogger logger = EventLogger.getDefault();
+
+    public AuctionScheduler() {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auction-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Switches {@code orderBook} to auction mode and uncrosses it every {@code intervalMillis}. */
+    public void schedule(OrderBook orderBook, long intervalMillis, TradeListener listener) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Auction interval must be positive: " + intervalMillis);
+        }
+        orderBook.startAuction();
+        auctions.computeIfAbsent(orderBook, book -> scheduler.scheduleAtFixedRate(
+                () -> uncross(book, listener), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /** An exception escaping a fixed-rate task would cancel every later run and leave the book in auction mode. */
+    private void uncross(OrderBook orderBook, TradeListener listener) {
+        try {
+            orderBook.uncross(listener);
+        } catch (Exception e) {
+            logger.log(Component.EXECUTION, Level.ERROR, EventType.MESSAGE,
+                    "Auction uncross failed for " + orderBook.getSymbol() + ": " + e);
+        }
+    }
+
+    /** Stops the periodic uncross and returns the book to continuous matching after a final uncross. */
+    public void unschedule(OrderBook orderBook, TradeListener listener) {
+        ScheduledFuture<?> auction = auctions.remove(orderBook);
+        if (auction != null) {
+            auction.cancel(false);
+        }
+        orderBook.endAuction(listener);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        auctions.clear();
+    }
+}
@@ -0,0 +1,13 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.Side;
+
+/**
+ * Receives incremental L2 updates from an {@link OrderBook}: the new aggregated
+ * quantity of a price level every time it changes. A quantity of zero means the
+ * level was removed. Called on the matching thread while the book is held.
+ */
+@FunctionalInterface
+public interface DepthListener {
+    void onLevelChange(String symbol, Side side, long priceTicks, long quantity);
+}
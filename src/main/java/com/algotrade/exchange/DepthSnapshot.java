@@ -0,0 +1,75 @@
+package com.algotrade.exchange;
+
+/**
+ * Immutable top-N view of an order book: aggregated quantity and order count
+ * per price level, best level first on each side.
+ */
+public class DepthSnapshot {
+    private final String symbol;
+    private final long[] bidPrices;
+    private final long[] bidQuantities;
+    private final int[] bidOrderCounts;
+    private final long[] askPrices;
+    private final long[] askQuantities;
+    private final int[] askOrderCounts;
+
+    DepthSnapshot(String symbol, long[] bidPrices, long[] bidQuantities, int[] bidOrderCounts,
+                  long[] askPrices, long[] askQuantities, int[] askOrderCounts) {
+        this.symbol = symbol;
+        this.bidPrices = bidPrices;
+        this.bidQuantities = bidQuantities;
+        this.bidOrderCounts = bidOrderCounts;
+        this.askPrices = askPrices;
+        this.askQuantities = askQuantities;
+        this.askOrderCounts = askOrderCounts;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getBidLevels() {
+        return bidPrices.length;
+    }
+
+    public int getAskLevels() {
+        return askPrices.length;
+    }
+
+    public long getBidPrice(int level) {
+        return bidPrices[level];
+    }
+
+    public long getBidQuantity(int level) {
+        return bidQuantities[level];
+    }
+
+    public int getBidOrderCount(int level) {
+        return bidOrderCounts[level];
+    }
+
+    public long getAskPrice(int level) {
+        return askPrices[level];
+    }
+
+    public long getAskQuantity(int level) {
+        return askQuantities[level];
+    }
+
+    public int getAskOrderCount(int level) {
+        return askOrderCounts[level];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("DepthSnapshot{symbol='").append(symbol).append("', bids=[");
+        for (int i = 0; i < bidPrices.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(bidQuantities[i]).append('@').append(bidPrices[i]);
+        }
+        builder.append("], asks=[");
+        for (int i = 0; i < askPrices.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(askQuantities[i]).append('@').append(askPrices[i]);
+        }
+        return builder.append("]}").toString();
+    }
+}
@@ -1,33 +1,163 @@
 package com.algotrade.exchange;
 
+import com.algotrade.model.IdGenerator;
 import com.algotrade.model.Order;
+import com.algotrade.model.Prices;
+import com.algotrade.model.SequenceIdGenerator;
+import com.algotrade.model.SymbolRegistry;
 import com.algotrade.model.Trade;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Exchange {
-    private final Map<String, OrderBook> orderBooks;
+    private volatile OrderBook[] orderBooks; // By symbol id, copied on growth
+    private final List<OrderBook> allOrderBooks;
+    private final IdGenerator tradeIdGenerator;
+    private final List<OrderEventListener> eventListeners;
 
     public Exchange() {
-        this.orderBooks = new ConcurrentHashMap<>();
+        this(new SequenceIdGenerator());
     }
 
-    public void addSymbol(String symbol) {
-        orderBooks.putIfAbsent(symbol, new OrderBook(symbol));
+    public Exchange(IdGenerator tradeIdGenerator) {
+        this.orderBooks = new OrderBook[0];
+        this.allOrderBooks = new CopyOnWriteArrayList<>();
+        this.tradeIdGenerator = tradeIdGenerator;
+        this.eventListeners = new CopyOnWriteArrayList<>();
+    }
+
+    public synchronized void addSymbol(String symbol) {
+        int symbolId = SymbolRegistry.id(symbol);
+        OrderBook[] books = orderBooks;
+        if (symbolId < books.length && books[symbolId] != null) {
+            return;
+        }
+        OrderBook orderBook = new OrderBook(symbol, tradeIdGenerator);
+        eventListeners.forEach(orderBook::addOrderEventListener);
+        books = Arrays.copyOf(books, Math.max(books.length, symbolId + 1));
+        books[symbolId] = orderBook;
+        orderBooks = books;
+        allOrderBooks.add(orderBook);
+    }
+
+    /** Registers a listener on every current and future book, e.g. a journal. Registering it again has no effect. */
+    public synchronized void addOrderEventListener(OrderEventListener listener) {
+        if (eventListeners.contains(listener)) {
+            return;
+        }
+        eventListeners.add(listener);
+        allOrderBooks.forEach(orderBook -> orderBook.addOrderEventListener(listener));
+    }
+
+    public IdGenerator getTradeIdGenerator() {
+        return tradeIdGenerator;
+    }
+
+    public Collection<OrderBook> getOrderBooks() {
+        return Collections.unmodifiableList(allOrderBooks);
+    }
+
+    public void addSymbol(String symbol, double tickSize) {
+        Prices.setTickSize(symbol, tickSize);
+        addSymbol(symbol);
     }
 
     public List<Trade> placeOrder(Order order) {
-        OrderBook orderBook = orderBooks.get(order.getSymbol());
+        return requireOrderBook(order).processOrder(order);
+    }
+
+    public void placeOrder(Order order, TradeListener listener) {
+        requireOrderBook(order).processOrder(order, listener);
+    }
+
+    /**
+     * Places a batch of orders, taking each book once. Orders are grouped by
+     * symbol and matched in arrival order within each symbol. Every symbol is
+     * resolved before anything is matched, so an unsupported symbol rejects
+     * the whole batch.
+     *
+     * @return all fills of the batch, grouped by book in first-seen symbol order
+     */
+    public FillBuffer placeOrders(Collection<Order> orders) {
+        FillBuffer fills = new FillBuffer(Math.max(orders.size(), 1));
+        placeOrders(orders, fills);
+        return fills;
+    }
+
+    public void placeOrders(Collection<Order> orders, TradeListener listener) {
+        Iterator<Order> iterator = orders.iterator();
+        if (!iterator.hasNext()) {
+            return;
+        }
+        Order first = iterator.next();
+        boolean singleSymbol = true;
+        while (singleSymbol && iterator.hasNext()) {
+            singleSymbol = first.getSymbolId() == iterator.next().getSymbolId();
+        }
+        if (singleSymbol) { // Common case: a strategy's orders for one instrument, no grouping needed
+            requireOrderBook(first).processOrders(orders, listener);
+            return;
+        }
+
+        Map<OrderBook, List<Order>> ordersByBook = new LinkedHashMap<>();
+        for (Order order : orders) {
+            ordersByBook.computeIfAbsent(requireOrderBook(order), book -> new ArrayList<>()).add(order);
+        }
+        ordersByBook.forEach((book, bookOrders) -> book.processOrders(bookOrders, listener));
+    }
+
+    public boolean cancelOrder(String symbol, long orderId) {
+        return requireOrderBook(symbol).cancelOrder(orderId);
+    }
+
+    public List<Trade> amendOrder(String symbol, long orderId, long newPrice, long newQuantity) {
+        return requireOrderBook(symbol).amendOrder(orderId, newPrice, newQuantity);
+    }
+
+    /** Puts the symbol's book into its call phase; see {@link AuctionScheduler} for periodic uncrosses. */
+    public void startAuction(String symbol) {
+        requireOrderBook(symbol).startAuction();
+    }
+
+    public void uncross(String symbol, TradeListener listener) {
+        requireOrderBook(symbol).uncross(listener);
+    }
+
+    public void endAuction(String symbol, TradeListener listener) {
+        requireOrderBook(symbol).endAuction(listener);
+    }
+
+    private OrderBook requireOrderBook(Order order) {
+        OrderBook orderBook = orderBook(order.getSymbolId());
         if (orderBook == null) {
             throw new IllegalArgumentException("Symbol not supported: " + order.getSymbol());
         }
-        return orderBook.processOrder(order);
+        return orderBook;
+    }
+
+    private OrderBook requireOrderBook(String symbol) {
+        OrderBook orderBook = getOrderBook(symbol);
+        if (orderBook == null) {
+            throw new IllegalArgumentException("Symbol not supported: " + symbol);
+        }
+        return orderBook;
+    }
+
+    private OrderBook orderBook(int symbolId) {
+        OrderBook[] books = orderBooks;
+        return symbolId >= 0 && symbolId < books.length ? books[symbolId] : null;
     }
 
     // For testing and monitoring
     public OrderBook getOrderBook(String symbol) {
-        return orderBooks.get(symbol);
+        return orderBook(SymbolRegistry.find(symbol));
     }
 }
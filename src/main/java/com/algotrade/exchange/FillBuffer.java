@@ -0,0 +1,118 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.Order;
+import com.algotrade.model.Trade;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable, growable column store of fills. Once it has grown to the largest
+ * burst it sees, recording fills and {@link #clear() clearing} it allocate nothing.
+ * Not thread-safe; keep one per matching caller.
+ */
+public class FillBuffer implements TradeListener {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] tradeIds;
+    private Order[] takerOrders;
+    private Order[] makerOrders;
+    private long[] priceTicks;
+    private long[] quantities;
+    private int size;
+
+    public FillBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FillBuffer(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.tradeIds = new long[capacity];
+        this.takerOrders = new Order[capacity];
+        this.makerOrders = new Order[capacity];
+        this.priceTicks = new long[capacity];
+        this.quantities = new long[capacity];
+    }
+
+    @Override
+    public void onTrade(long tradeId, Order takerOrder, Order makerOrder, long priceTicks, long quantity) {
+        if (size == quantities.length) {
+            grow();
+        }
+        this.tradeIds[size] = tradeId;
+        this.takerOrders[size] = takerOrder;
+        this.makerOrders[size] = makerOrder;
+        this.priceTicks[size] = priceTicks;
+        this.quantities[size] = quantity;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = quantities.length * 2;
+        tradeIds = Arrays.copyOf(tradeIds, capacity);
+        takerOrders = Arrays.copyOf(takerOrders, capacity);
+        makerOrders = Arrays.copyOf(makerOrders, capacity);
+        priceTicks = Arrays.copyOf(priceTicks, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTradeId(int index) {
+        checkIndex(index);
+        return tradeIds[index];
+    }
+
+    public Order getTakerOrder(int index) {
+        checkIndex(index);
+        return takerOrders[index];
+    }
+
+    public Order getMakerOrder(int index) {
+        checkIndex(index);
+        return makerOrders[index];
+    }
+
+    public long getPriceTicks(int index) {
+        checkIndex(index);
+        return priceTicks[index];
+    }
+
+    public long getQuantity(int index) {
+        checkIndex(index);
+        return quantities[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Fill index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    /** Forgets all fills, dropping order references so they can be collected. */
+    public void clear() {
+        Arrays.fill(takerOrders, 0, size, null);
+        Arrays.fill(makerOrders, 0, size, null);
+        size = 0;
+    }
+
+    /** Materializes the buffered fills as {@link Trade}s, for callers of the list-based API. */
+    public List<Trade> toTrades() {
+        if (size == 0) {
+            return List.of();
+        }
+        List<Trade> trades = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Order taker = takerOrders[i];
+            trades.add(new Trade(tradeIds[i], taker.getOrderId(), taker.getSymbol(), priceTicks[i], quantities[i], taker.getSide()));
+        }
+        return trades;
+    }
+}
@@ -0,0 +1,85 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.IdGenerator;
+import com.algotrade.model.Order;
+import com.algotrade.model.Trade;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Inbound request for a {@link MatchingShard}. Producers create one per call
+ * and hand it over through the shard's queue; only the shard thread executes it.
+ */
+abstract class MatchingCommand<T> {
+    final String symbol;
+    final CompletableFuture<T> result;
+
+    MatchingCommand(String symbol) {
+        this.symbol = symbol;
+        this.result = new CompletableFuture<>();
+    }
+
+    abstract T apply(OrderBook orderBook);
+
+    T execute(Map<String, OrderBook> orderBooks) {
+        OrderBook orderBook = orderBooks.get(symbol);
+        if (orderBook == null) {
+            throw new IllegalArgumentException("Symbol not supported: " + symbol);
+        }
+        return apply(orderBook);
+    }
+
+    static MatchingCommand<Void> addSymbol(String symbol, IdGenerator tradeIdGenerator) {
+        return new MatchingCommand<>(symbol) {
+            @Override
+            Void execute(Map<String, OrderBook> orderBooks) {
+                orderBooks.putIfAbsent(symbol, new OrderBook(symbol, tradeIdGenerator));
+                return null;
+            }
+
+            @Override
+            Void apply(OrderBook orderBook) {
+                return null;
+            }
+        };
+    }
+
+    static MatchingCommand<List<Trade>> placeOrder(Order order) {
+        return new MatchingCommand<>(order.getSymbol()) {
+            @Override
+            List<Trade> apply(OrderBook orderBook) {
+                return orderBook.applyOrder(order);
+            }
+        };
+    }
+
+    static MatchingCommand<Boolean> cancelOrder(String symbol, long orderId) {
+        return new MatchingCommand<>(symbol) {
+            @Override
+            Boolean apply(OrderBook orderBook) {
+                return orderBook.applyCancel(orderId);
+            }
+        };
+    }
+
+    static MatchingCommand<List<Trade>> amendOrder(String symbol, long orderId, long newPrice, long newQuantity) {
+        return new MatchingCommand<>(symbol) {
+            @Override
+            List<Trade> apply(OrderBook orderBook) {
+                return orderBook.applyAmend(orderId, newPrice, newQuantity);
+            }
+        };
+    }
+
+    static <T> MatchingCommand<T> inspect(String symbol, Function<OrderBook, T> reader) {
+        return new MatchingCommand<>(symbol) {
+            @Override
+            T apply(OrderBook orderBook) {
+                return reader.apply(orderBook);
+            }
+        };
+    }
+}
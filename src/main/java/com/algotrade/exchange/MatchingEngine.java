@@ -0,0 +1,113 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.Order;
+import com.algotrade.model.SequenceIdGenerator;
+import com.algotrade.model.Trade;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Sharded, single-writer alternative to {@link Exchange}. Symbols are assigned
+ * to a fixed set of matching threads; each thread owns its books exclusively
+ * and drains its own lock-free inbound queue, so callers never contend on a
+ * book monitor and throughput scales with the number of shards.
+ *
+ * <p>Results are delivered through {@link CompletableFuture}s completed on the
+ * shard thread. Dependent stages attached without an executor therefore run on
+ * that thread and should stay short.
+ *
+ * <p>Each shard stamps trade ids with its own {@link SequenceIdGenerator} node
+ * id. Node 0 belongs to the default generators of {@link Exchange} and
+ * {@link Order}, so shards start at {@link #DEFAULT_FIRST_NODE_ID}; give engines
+ * in the same process disjoint ranges.
+ */
+public class MatchingEngine {
+    public static final int DEFAULT_FIRST_NODE_ID = 1;
+
+    private final MatchingShard[] shards;
+    private final Map<String, MatchingShard> symbolShards;
+
+    public MatchingEngine(int shardCount) {
+        this(shardCount, DEFAULT_FIRST_NODE_ID);
+    }
+
+    /** Shard {@code i} uses node id {@code firstNodeId + i}. */
+    public MatchingEngine(int shardCount, int firstNodeId) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        if (firstNodeId <= 0 || firstNodeId + shardCount > 1 << SequenceIdGenerator.NODE_BITS) {
+            throw new IllegalArgumentException("Node ids out of range: " + firstNodeId + " to " + (firstNodeId + shardCount - 1));
+        }
+        this.shards = new MatchingShard[shardCount];
+        this.symbolShards = new ConcurrentHashMap<>();
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new MatchingShard(i, firstNodeId + i);
+            shards[i].start();
+        }
+    }
+
+    public MatchingEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Adds a symbol to the shard chosen by its hash. */
+    public void addSymbol(String symbol) {
+        addSymbol(symbol, Math.floorMod(symbol.hashCode(), shards.length));
+    }
+
+    /** Adds a symbol to an explicit shard, e.g. to keep a symbol group together. */
+    public void addSymbol(String symbol, int shardIndex) {
+        MatchingShard shard = shards[shardIndex];
+        if (symbolShards.putIfAbsent(symbol, shard) == null) {
+            shard.submit(MatchingCommand.addSymbol(symbol, shard.getTradeIdGenerator()));
+        }
+    }
+
+    public CompletableFuture<List<Trade>> placeOrder(Order order) {
+        return submit(MatchingCommand.placeOrder(order));
+    }
+
+    public CompletableFuture<Boolean> cancelOrder(String symbol, long orderId) {
+        return submit(MatchingCommand.cancelOrder(symbol, orderId));
+    }
+
+    public CompletableFuture<List<Trade>> amendOrder(String symbol, long orderId, long newPrice, long newQuantity) {
+        return submit(MatchingCommand.amendOrder(symbol, orderId, newPrice, newQuantity));
+    }
+
+    /**
+     * Runs a read-only function against a book on its owning shard thread,
+     * which is the only thread allowed to look at it.
+     */
+    public <T> CompletableFuture<T> inspect(String symbol, Function<OrderBook, T> reader) {
+        return submit(MatchingCommand.inspect(symbol, reader));
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    private <T> CompletableFuture<T> submit(MatchingCommand<T> command) {
+        MatchingShard shard = symbolShards.get(command.symbol);
+        if (shard == null) {
+            command.result.completeExceptionally(new IllegalArgumentException("Symbol not supported: " + command.symbol));
+        } else {
+            shard.submit(command);
+        }
+        return command.result;
+    }
+
+    public void shutdown() throws InterruptedException {
+        for (MatchingShard shard : shards) {
+            shard.shutdown();
+        }
+        for (MatchingShard shard : shards) {
+            shard.awaitTermination(1000);
+        }
+    }
+}
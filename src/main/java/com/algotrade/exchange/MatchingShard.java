@@ -0,0 +1,106 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.IdGenerator;
+import com.algotrade.model.SequenceIdGenerator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One matching thread and the books it owns. Producers only touch the
+ * lock-free inbound queue; the books themselves are read and written by the
+ * shard thread alone, so matching runs without any monitor.
+ */
+class MatchingShard implements Runnable {
+    private static final int SPIN_TRIES = 1000;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Queue<MatchingCommand<?>> inbound;
+    private final Map<String, OrderBook> orderBooks;
+    private final IdGenerator tradeIdGenerator;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    MatchingShard(int index, int nodeId) {
+        this.inbound = new ConcurrentLinkedQueue<>();
+        this.orderBooks = new HashMap<>();
+        this.tradeIdGenerator = new SequenceIdGenerator(nodeId); // Node-prefixed, so trade ids never collide across shards
+        this.thread = new Thread(this, "matching-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    IdGenerator getTradeIdGenerator() {
+        return tradeIdGenerator;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void submit(MatchingCommand<?> command) {
+        if (!running) {
+            rejectShutDown(command);
+            return;
+        }
+        inbound.offer(command);
+        // Shut down meanwhile: the worker may have drained before the offer, so whoever removes the command fails it
+        if (!running && inbound.remove(command)) {
+            rejectShutDown(command);
+            return;
+        }
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        int idleSpins = 0;
+        while (running) {
+            MatchingCommand<?> command = inbound.poll();
+            if (command != null) {
+                execute(command);
+                idleSpins = 0;
+            } else if (idleSpins < SPIN_TRIES) {
+                idleSpins++;
+                Thread.onSpinWait();
+            } else {
+                parked = true;
+                if (inbound.isEmpty() && running) { // Re-check after publishing the parked flag
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                parked = false;
+            }
+        }
+        MatchingCommand<?> pending;
+        while ((pending = inbound.poll()) != null) {
+            rejectShutDown(pending);
+        }
+    }
+
+    private static void rejectShutDown(MatchingCommand<?> command) {
+        command.result.completeExceptionally(new IllegalStateException("Matching engine is shut down"));
+    }
+
+    private <T> void execute(MatchingCommand<T> command) {
+        try {
+            command.result.complete(command.execute(orderBooks));
+        } catch (RuntimeException e) {
+            command.result.completeExceptionally(e);
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    void awaitTermination(long timeoutMillis) throws InterruptedException {
+        thread.join(timeoutMillis);
+    }
+}
@@ -1,110 +1,619 @@
 package com.algotrade.exchange;
 
+import com.algotrade.model.IdGenerator;
 import com.algotrade.model.Order;
 import com.algotrade.model.OrderType;
 import com.algotrade.model.Side;
+import com.algotrade.model.SequenceIdGenerator;
 import com.algotrade.model.Trade;
+import com.algotrade.util.LongHashMap;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
 
+/**
+ * Price-level ladder order book. Each side is a sorted map of price levels and
+ * every level holds its orders in FIFO order, giving price-time priority.
+ * Prices are integer ticks, so the matching loop only compares longs.
+ * The best level of each side is cached so matching never searches the ladder;
+ * the ladder is only touched when a level is created or emptied.
+ */
 public class OrderBook {
+    public static final long NO_PRICE = Long.MIN_VALUE;
+
     private final String symbol;
-    private final PriorityQueue<Order> buyOrders;
-    private final PriorityQueue<Order> sellOrders;
-    private final Map<String, Order> activeOrders;
-    private final AtomicLong tradeIdCounter;
+    private final NavigableMap<Long, PriceLevel> bidLevels;
+    private final NavigableMap<Long, PriceLevel> askLevels;
+    private final LongHashMap<RestingOrder> activeOrders;
+    private final IdGenerator tradeIdGenerator;
+    private final FillBuffer scratchFills; // Backs the List-returning API; guarded by the book's owner
+    private volatile DepthListener[] depthListeners = new DepthListener[0]; // Copy-on-write, iterated without allocation
+    private volatile OrderEventListener[] eventListeners = new OrderEventListener[0];
+    private PriceLevel bestBid;
+    private PriceLevel bestAsk;
+    private boolean auction;
+    private final Deque<Order> pendingMarketBuys = new ArrayDeque<>(); // Market orders waiting for the next uncross
+    private final Deque<Order> pendingMarketSells = new ArrayDeque<>();
 
     public OrderBook(String symbol) {
+        this(symbol, new SequenceIdGenerator());
+    }
+
+    public OrderBook(String symbol, IdGenerator tradeIdGenerator) {
         this.symbol = symbol;
-        this.buyOrders = new PriorityQueue<>((o1, o2) -> Double.compare(o2.getPrice(), o1.getPrice())); // Max heap for buy orders (highest price first)
-        this.sellOrders = new PriorityQueue<>((o1, o2) -> Double.compare(o1.getPrice(), o2.getPrice())); // Min heap for sell orders (lowest price first)
-        this.activeOrders = new ConcurrentHashMap<>();
-        this.tradeIdCounter = new AtomicLong(0);
+        this.bidLevels = new TreeMap<>(Collections.reverseOrder()); // Highest bid first
+        this.askLevels = new TreeMap<>(); // Lowest ask first
+        this.activeOrders = new LongHashMap<>();
+        this.tradeIdGenerator = tradeIdGenerator;
+        this.scratchFills = new FillBuffer();
     }
 
     public synchronized List<Trade> processOrder(Order newOrder) {
-        List<Trade> trades = new ArrayList<>();
-        activeOrders.put(newOrder.getOrderId(), newOrder);
+        return applyOrder(newOrder);
+    }
+
+    /**
+     * Matches an order and pushes every fill to {@code listener} instead of
+     * building a result list, so matching itself allocates nothing.
+     */
+    public synchronized void processOrder(Order newOrder, TradeListener listener) {
+        accept(newOrder, listener);
+    }
+
+    /**
+     * Matches a batch of orders in iteration order under a single acquisition
+     * of the book, pushing all fills to {@code listener}.
+     */
+    public synchronized void processOrders(Iterable<Order> newOrders, TradeListener listener) {
+        for (Order newOrder : newOrders) {
+            accept(newOrder, listener);
+        }
+    }
+
+    /**
+     * Unsynchronized matching entry point for a single-writer owner of this
+     * book, such as a {@link MatchingEngine} shard thread.
+     */
+    List<Trade> applyOrder(Order newOrder) {
+        accept(newOrder, scratchFills);
+        return drainScratchFills();
+    }
+
+    void applyOrder(Order newOrder, TradeListener listener) {
+        accept(newOrder, listener);
+    }
+
+    private void accept(Order newOrder, TradeListener listener) {
+        for (OrderEventListener eventListener : eventListeners) {
+            eventListener.onOrderAccepted(newOrder);
+        }
+        match(newOrder, listener);
+    }
+
+    private List<Trade> drainScratchFills() {
+        List<Trade> trades = scratchFills.toTrades();
+        scratchFills.clear();
+        return trades;
+    }
 
+    /**
+     * Removes a resting order from the book. The order is found through its id
+     * and unlinked from its price level in constant time.
+     *
+     * @return false if the order is not resting (unknown, filled or already cancelled)
+     */
+    public synchronized boolean cancelOrder(long orderId) {
+        return applyCancel(orderId);
+    }
+
+    boolean applyCancel(long orderId) {
+        RestingOrder node = activeOrders.remove(orderId);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        for (OrderEventListener eventListener : eventListeners) {
+            eventListener.onOrderCancelled(node.order);
+        }
+        return true;
+    }
+
+    /**
+     * Amends a resting order. Reducing the quantity at the same price keeps the
+     * order's place in the queue; a price change or a quantity increase sends it
+     * to the back of the queue at its (new) price. A new price that crosses the
+     * book matches immediately, like a newly arrived order.
+     *
+     * @return trades generated if the amended order crossed the book
+     * @throws IllegalArgumentException if the order is not resting or the quantity is not positive
+     */
+    public synchronized List<Trade> amendOrder(long orderId, long newPrice, long newQuantity) {
+        return applyAmend(orderId, newPrice, newQuantity);
+    }
+
+    List<Trade> applyAmend(long orderId, long newPrice, long newQuantity) {
+        RestingOrder node = activeOrders.get(orderId);
+        if (node == null) {
+            throw new IllegalArgumentException("Order not resting in book: " + orderId);
+        }
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Amended quantity must be positive: " + newQuantity);
+        }
+        Order order = node.order;
+        for (OrderEventListener eventListener : eventListeners) {
+            eventListener.onOrderAmended(order, newPrice, newQuantity);
+        }
+        if (newPrice == order.getPriceTicks() && newQuantity <= order.getQuantity()) {
+            long reduction = order.getQuantity() - newQuantity;
+            order.reduceQuantity(reduction);
+            node.level.reduceQuantity(reduction);
+            publishLevel(order.getSide(), node.level);
+            return List.of();
+        }
+        activeOrders.remove(orderId);
+        unlink(node);
+        order.amend(newPrice, newQuantity);
+        match(order, scratchFills);
+        return drainScratchFills();
+    }
+
+    private void match(Order newOrder, TradeListener listener) {
+        if (auction) {
+            collect(newOrder);
+            return;
+        }
         if (newOrder.getSide() == Side.BUY) {
-            trades.addAll(matchBuyOrder(newOrder));
-            if (newOrder.getQuantity() > 0) {
-                buyOrders.offer(newOrder);
-            }
+            matchBuyOrder(newOrder, listener);
         } else { // SELL side
-            trades.addAll(matchSellOrder(newOrder));
-            if (newOrder.getQuantity() > 0) {
-                sellOrders.offer(newOrder);
+            matchSellOrder(newOrder, listener);
+        }
+        if (newOrder.getQuantity() > 0) {
+            rest(newOrder);
+        }
+    }
+
+    private void matchBuyOrder(Order newBuyOrder, TradeListener listener) {
+        while (newBuyOrder.getQuantity() > 0 && bestAsk != null) {
+            if (newBuyOrder.getOrderType() != OrderType.MARKET && newBuyOrder.getPriceTicks() < bestAsk.getPrice()) {
+                break; // No match for limit buy order
+            }
+            PriceLevel level = bestAsk;
+            RestingOrder bestSell = level.peek();
+            Order bestSellOrder = bestSell.order;
+            long tradedQuantity = Math.min(newBuyOrder.getQuantity(), bestSellOrder.getQuantity());
+            newBuyOrder.reduceQuantity(tradedQuantity);
+            bestSellOrder.reduceQuantity(tradedQuantity);
+            level.reduceQuantity(tradedQuantity);
+            publishTrade(listener, newBuyOrder, bestSellOrder, level.getPrice(), tradedQuantity);
+
+            if (bestSellOrder.getQuantity() == 0) {
+                activeOrders.remove(bestSellOrder.getOrderId());
+                unlink(bestSell);
+            } else {
+                publishLevel(Side.SELL, level);
             }
         }
-        return trades;
     }
 
-    private List<Trade> matchBuyOrder(Order newBuyOrder) {
-        List<Trade> trades = new ArrayList<>();
-        while (newBuyOrder.getQuantity() > 0 && !sellOrders.isEmpty()) {
-            Order bestSellOrder = sellOrders.peek();
+    private void matchSellOrder(Order newSellOrder, TradeListener listener) {
+        while (newSellOrder.getQuantity() > 0 && bestBid != null) {
+            if (newSellOrder.getOrderType() != OrderType.MARKET && newSellOrder.getPriceTicks() > bestBid.getPrice()) {
+                break; // No match for limit sell order
+            }
+            PriceLevel level = bestBid;
+            RestingOrder bestBuy = level.peek();
+            Order bestBuyOrder = bestBuy.order;
+            long tradedQuantity = Math.min(newSellOrder.getQuantity(), bestBuyOrder.getQuantity());
+            newSellOrder.reduceQuantity(tradedQuantity);
+            bestBuyOrder.reduceQuantity(tradedQuantity);
+            level.reduceQuantity(tradedQuantity);
+            publishTrade(listener, newSellOrder, bestBuyOrder, level.getPrice(), tradedQuantity);
 
-            if (newBuyOrder.getOrderType() == OrderType.MARKET || newBuyOrder.getPrice() >= bestSellOrder.getPrice()) {
-                long tradedQuantity = Math.min(newBuyOrder.getQuantity(), bestSellOrder.getQuantity());
-                double tradePrice = bestSellOrder.getPrice();
+            if (bestBuyOrder.getQuantity() == 0) {
+                activeOrders.remove(bestBuyOrder.getOrderId());
+                unlink(bestBuy);
+            } else {
+                publishLevel(Side.BUY, level);
+            }
+        }
+    }
 
-                trades.add(new Trade(newBuyOrder.getOrderId(), symbol, tradePrice, tradedQuantity, Side.BUY));
+    /** Call phase: limit orders rest even if they cross, market orders wait for the uncross. */
+    private void collect(Order order) {
+        if (order.getOrderType() == OrderType.MARKET) {
+            (order.getSide() == Side.BUY ? pendingMarketBuys : pendingMarketSells).addLast(order);
+        } else {
+            rest(order);
+        }
+    }
 
-                newBuyOrder.reduceQuantity(tradedQuantity);
-                bestSellOrder.reduceQuantity(tradedQuantity);
+    /**
+     * Switches the book to call-auction mode: orders are collected without
+     * matching until {@link #uncross} runs, typically on a timer (see {@link AuctionScheduler}).
+     */
+    public synchronized void startAuction() {
+        applyStartAuction();
+    }
 
-                if (bestSellOrder.getQuantity() == 0) {
-                    sellOrders.poll();
-                    activeOrders.remove(bestSellOrder.getOrderId());
-                }
-            } else {
-                break; // No match for limit buy order
+    /** Uncrosses the book once more and returns it to continuous matching. */
+    public synchronized void endAuction(TradeListener listener) {
+        applyEndAuction(listener);
+    }
+
+    /**
+     * Executes everything that can trade at the single clearing price that
+     * maximizes executed volume and pushes the fills to {@code listener}.
+     * Nothing happens in continuous mode, where the book is never crossed.
+     */
+    public synchronized void uncross(TradeListener listener) {
+        applyUncross(listener);
+    }
+
+    public synchronized List<Trade> uncross() {
+        applyUncross(scratchFills);
+        return drainScratchFills();
+    }
+
+    public synchronized boolean isAuction() {
+        return auction;
+    }
+
+    void applyStartAuction() {
+        if (auction) {
+            return;
+        }
+        auction = true;
+        for (OrderEventListener eventListener : eventListeners) {
+            eventListener.onAuctionStarted(symbol);
+        }
+    }
+
+    void applyEndAuction(TradeListener listener) {
+        if (!auction) {
+            return;
+        }
+        applyUncross(listener);
+        auction = false;
+        for (OrderEventListener eventListener : eventListeners) {
+            eventListener.onAuctionEnded(symbol);
+        }
+        // Market orders the auction could not fill now trade continuously
+        while (!pendingMarketBuys.isEmpty()) {
+            match(pendingMarketBuys.pollFirst(), listener);
+        }
+        while (!pendingMarketSells.isEmpty()) {
+            match(pendingMarketSells.pollFirst(), listener);
+        }
+    }
+
+    void applyUncross(TradeListener listener) {
+        if (!auction) {
+            return;
+        }
+        for (OrderEventListener eventListener : eventListeners) {
+            eventListener.onUncross(symbol);
+        }
+        // Candidate clearing prices are the level prices, ascending
+        long[] prices = new long[bidLevels.size() + askLevels.size()];
+        int count = 0;
+        for (long price : bidLevels.keySet()) {
+            prices[count++] = price;
+        }
+        for (long price : askLevels.keySet()) {
+            prices[count++] = price;
+        }
+        Arrays.sort(prices, 0, count);
+        // Demand at p: market buys plus bids at or above p; supply: market sells plus asks at or below p
+        long[] demand = new long[count];
+        long cumulative = pendingQuantity(pendingMarketBuys);
+        for (int i = count - 1; i >= 0; i--) {
+            if (i == count - 1 || prices[i] != prices[i + 1]) {
+                PriceLevel level = bidLevels.get(prices[i]);
+                cumulative += level == null ? 0 : level.getTotalQuantity();
             }
+            demand[i] = cumulative;
+        }
+        long clearingPrice = NO_PRICE;
+        long volume = 0;
+        long imbalance = Long.MAX_VALUE;
+        cumulative = pendingQuantity(pendingMarketSells);
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && prices[i] == prices[i - 1]) {
+                continue;
+            }
+            PriceLevel level = askLevels.get(prices[i]);
+            cumulative += level == null ? 0 : level.getTotalQuantity();
+            long executable = Math.min(demand[i], cumulative);
+            long surplus = Math.abs(demand[i] - cumulative);
+            // Most volume wins, then the smallest surplus, then the lowest price
+            if (executable > volume || (executable == volume && executable > 0 && surplus < imbalance)) {
+                clearingPrice = prices[i];
+                volume = executable;
+                imbalance = surplus;
+            }
+        }
+        if (volume > 0) {
+            executeAuction(clearingPrice, volume, listener);
         }
-        return trades;
     }
 
-    private List<Trade> matchSellOrder(Order newSellOrder) {
-        List<Trade> trades = new ArrayList<>();
-        while (newSellOrder.getQuantity() > 0 && !buyOrders.isEmpty()) {
-            Order bestBuyOrder = buyOrders.peek();
+    private static long pendingQuantity(Deque<Order> orders) {
+        long quantity = 0;
+        for (Order order : orders) {
+            quantity += order.getQuantity();
+        }
+        return quantity;
+    }
 
-            if (newSellOrder.getOrderType() == OrderType.MARKET || newSellOrder.getPrice() <= bestBuyOrder.getPrice()) {
-                long tradedQuantity = Math.min(newSellOrder.getQuantity(), bestBuyOrder.getQuantity());
-                double tradePrice = bestBuyOrder.getPrice();
+    /**
+     * Fills {@code volume} at {@code clearingPrice}, pairing buys and sells in
+     * priority order (pending market orders first). There is no aggressor in an
+     * auction; the later of the two orders is reported as the taker.
+     */
+    private void executeAuction(long clearingPrice, long volume, TradeListener listener) {
+        long remaining = volume;
+        while (remaining > 0) {
+            RestingOrder buyNode = pendingMarketBuys.isEmpty() ? bestBid.peek() : null;
+            RestingOrder sellNode = pendingMarketSells.isEmpty() ? bestAsk.peek() : null;
+            Order buy = buyNode == null ? pendingMarketBuys.peekFirst() : buyNode.order;
+            Order sell = sellNode == null ? pendingMarketSells.peekFirst() : sellNode.order;
+            long tradedQuantity = Math.min(remaining, Math.min(buy.getQuantity(), sell.getQuantity()));
+            buy.reduceQuantity(tradedQuantity);
+            sell.reduceQuantity(tradedQuantity);
+            remaining -= tradedQuantity;
+            if (buyNode != null) {
+                buyNode.level.reduceQuantity(tradedQuantity);
+            }
+            if (sellNode != null) {
+                sellNode.level.reduceQuantity(tradedQuantity);
+            }
+            boolean buyIsTaker = buy.getOrderId() > sell.getOrderId();
+            publishTrade(listener, buyIsTaker ? buy : sell, buyIsTaker ? sell : buy, clearingPrice, tradedQuantity);
+            settleAuctionFill(buy, buyNode, pendingMarketBuys);
+            settleAuctionFill(sell, sellNode, pendingMarketSells);
+        }
+    }
 
-                trades.add(new Trade(newSellOrder.getOrderId(), symbol, tradePrice, tradedQuantity, Side.SELL));
+    private void settleAuctionFill(Order order, RestingOrder node, Deque<Order> pendingMarketOrders) {
+        if (node == null) {
+            if (order.getQuantity() == 0) {
+                pendingMarketOrders.pollFirst();
+            }
+        } else if (order.getQuantity() == 0) {
+            activeOrders.remove(order.getOrderId());
+            unlink(node);
+        } else {
+            publishLevel(order.getSide(), node.level);
+        }
+    }
 
-                newSellOrder.reduceQuantity(tradedQuantity);
-                bestBuyOrder.reduceQuantity(tradedQuantity);
+    private void rest(Order order) {
+        NavigableMap<Long, PriceLevel> levels = order.getSide() == Side.BUY ? bidLevels : askLevels;
+        long price = order.getPriceTicks();
+        PriceLevel level = levels.get(price);
+        if (level == null) {
+            level = new PriceLevel(price);
+            levels.put(price, level);
+        }
+        RestingOrder node = new RestingOrder(order);
+        level.add(node);
+        activeOrders.put(order.getOrderId(), node);
+        publishLevel(order.getSide(), level);
+
+        if (order.getSide() == Side.BUY) {
+            if (bestBid == null || price > bestBid.getPrice()) {
+                bestBid = level;
+            }
+        } else if (bestAsk == null || price < bestAsk.getPrice()) {
+            bestAsk = level;
+        }
+    }
+
+    /**
+     * Unlinks a node from its level and drops the level from the ladder once it
+     * is empty, refreshing the cached best level if needed.
+     */
+    private void unlink(RestingOrder node) {
+        PriceLevel level = node.level;
+        level.remove(node);
+        publishLevel(node.order.getSide(), level);
+        if (!level.isEmpty()) {
+            return;
+        }
+        if (node.order.getSide() == Side.BUY) {
+            bidLevels.remove(level.getPrice());
+            if (level == bestBid) {
+                bestBid = firstLevel(bidLevels);
+            }
+        } else {
+            askLevels.remove(level.getPrice());
+            if (level == bestAsk) {
+                bestAsk = firstLevel(askLevels);
+            }
+        }
+    }
+
+    private void publishTrade(TradeListener listener, Order taker, Order maker, long priceTicks, long quantity) {
+        long tradeId = tradeIdGenerator.nextId();
+        listener.onTrade(tradeId, taker, maker, priceTicks, quantity);
+        for (OrderEventListener eventListener : eventListeners) {
+            eventListener.onTrade(tradeId, taker, maker, priceTicks, quantity);
+        }
+    }
 
-                if (bestBuyOrder.getQuantity() == 0) {
-                    buyOrders.poll();
-                    activeOrders.remove(bestBuyOrder.getOrderId());
+    private void publishLevel(Side side, PriceLevel level) {
+        DepthListener[] listeners = depthListeners;
+        for (DepthListener listener : listeners) {
+            listener.onLevelChange(symbol, side, level.getPrice(), level.getTotalQuantity());
+        }
+    }
+
+    public synchronized void addDepthListener(DepthListener listener) {
+        DepthListener[] listeners = Arrays.copyOf(depthListeners, depthListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        depthListeners = listeners;
+    }
+
+    public synchronized void removeDepthListener(DepthListener listener) {
+        DepthListener[] listeners = depthListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                DepthListener[] remaining = new DepthListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, listeners.length - i - 1);
+                depthListeners = remaining;
+                return;
+            }
+        }
+    }
+
+    public synchronized void addOrderEventListener(OrderEventListener listener) {
+        OrderEventListener[] listeners = Arrays.copyOf(eventListeners, eventListeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        eventListeners = listeners;
+    }
+
+    /**
+     * Aggregated top-{@code levels} depth of each side, read straight from the
+     * per-level totals maintained by matching: O(levels), no sorting or copying of orders.
+     */
+    public synchronized DepthSnapshot depth(int levels) {
+        int bidCount = Math.min(levels, bidLevels.size());
+        int askCount = Math.min(levels, askLevels.size());
+        long[] bidPrices = new long[bidCount];
+        long[] bidQuantities = new long[bidCount];
+        int[] bidOrderCounts = new int[bidCount];
+        long[] askPrices = new long[askCount];
+        long[] askQuantities = new long[askCount];
+        int[] askOrderCounts = new int[askCount];
+        fillDepth(bidLevels, bidPrices, bidQuantities, bidOrderCounts);
+        fillDepth(askLevels, askPrices, askQuantities, askOrderCounts);
+        return new DepthSnapshot(symbol, bidPrices, bidQuantities, bidOrderCounts, askPrices, askQuantities, askOrderCounts);
+    }
+
+    private static void fillDepth(NavigableMap<Long, PriceLevel> levels, long[] prices, long[] quantities, int[] orderCounts) {
+        int i = 0;
+        for (PriceLevel level : levels.values()) {
+            if (i == prices.length) {
+                break;
+            }
+            prices[i] = level.getPrice();
+            quantities[i] = level.getTotalQuantity();
+            orderCounts[i] = level.size();
+            i++;
+        }
+    }
+
+    private static PriceLevel firstLevel(NavigableMap<Long, PriceLevel> levels) {
+        Map.Entry<Long, PriceLevel> first = levels.firstEntry();
+        return first == null ? null : first.getValue();
+    }
+
+    /**
+     * Copies every resting order while holding the book; {@code sequence} is read
+     * under the same lock so the copy matches exactly that point in the journal.
+     * The copy is O(resting orders) into flat arrays, so matching pauses only briefly.
+     */
+    public synchronized OrderBookSnapshot snapshot(LongSupplier sequence) {
+        int pending = pendingMarketBuys.size() + pendingMarketSells.size();
+        int count = pending + activeOrders.size();
+        long[] orderIds = new long[count];
+        Side[] sides = new Side[count];
+        OrderType[] orderTypes = new OrderType[count];
+        long[] priceTicks = new long[count];
+        long[] quantities = new long[count];
+        int i = 0;
+        for (Deque<Order> orders : List.of(pendingMarketBuys, pendingMarketSells)) {
+            for (Order order : orders) {
+                orderIds[i] = order.getOrderId();
+                sides[i] = order.getSide();
+                orderTypes[i] = order.getOrderType();
+                priceTicks[i] = order.getPriceTicks();
+                quantities[i] = order.getQuantity();
+                i++;
+            }
+        }
+        for (NavigableMap<Long, PriceLevel> levels : List.of(bidLevels, askLevels)) {
+            for (PriceLevel level : levels.values()) {
+                for (RestingOrder node = level.head(); node != null; node = node.next) {
+                    Order order = node.order;
+                    orderIds[i] = order.getOrderId();
+                    sides[i] = order.getSide();
+                    orderTypes[i] = order.getOrderType();
+                    priceTicks[i] = order.getPriceTicks();
+                    quantities[i] = order.getQuantity();
+                    i++;
                 }
+            }
+        }
+        return new OrderBookSnapshot(symbol, sequence.getAsLong(), auction, pending,
+                orderIds, sides, orderTypes, priceTicks, quantities);
+    }
+
+    /** Loads a snapshot into this empty book without matching, preserving queue order. */
+    public synchronized void restore(OrderBookSnapshot snapshot) {
+        if (!snapshot.getSymbol().equals(symbol)) {
+            throw new IllegalArgumentException("Snapshot is for " + snapshot.getSymbol() + ", not " + symbol);
+        }
+        if (!activeOrders.isEmpty() || !pendingMarketBuys.isEmpty() || !pendingMarketSells.isEmpty()) {
+            throw new IllegalStateException("Cannot restore into a non-empty book: " + symbol);
+        }
+        auction = snapshot.isAuction();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Order order = new Order(snapshot.getOrderId(i), symbol, snapshot.getOrderType(i), snapshot.getSide(i),
+                    snapshot.getPriceTicks(i), snapshot.getQuantity(i));
+            if (i < snapshot.getPendingMarketOrders()) {
+                (order.getSide() == Side.BUY ? pendingMarketBuys : pendingMarketSells).addLast(order);
             } else {
-                break; // No match for limit sell order
+                rest(order);
             }
         }
-        return trades;
     }
 
-    // For testing and monitoring
-    public PriorityQueue<Order> getBuyOrders() {
-        return buyOrders;
+    public String getSymbol() {
+        return symbol;
+    }
+
+    // For testing and monitoring: snapshots of resting orders in price-time priority
+    public synchronized Deque<Order> getBuyOrders() {
+        return snapshot(bidLevels);
+    }
+
+    public synchronized Deque<Order> getSellOrders() {
+        return snapshot(askLevels);
+    }
+
+    private static Deque<Order> snapshot(NavigableMap<Long, PriceLevel> levels) {
+        Deque<Order> orders = new ArrayDeque<>();
+        for (PriceLevel level : levels.values()) {
+            level.copyOrdersTo(orders);
+        }
+        return orders;
+    }
+
+    /** Best bid in ticks, or {@link #NO_PRICE} if there are no bids. */
+    public synchronized long getBestBidPrice() {
+        return bestBid == null ? NO_PRICE : bestBid.getPrice();
+    }
+
+    /** Best ask in ticks, or {@link #NO_PRICE} if there are no asks. */
+    public synchronized long getBestAskPrice() {
+        return bestAsk == null ? NO_PRICE : bestAsk.getPrice();
     }
 
-    public PriorityQueue<Order> getSellOrders() {
-        return sellOrders;
+    public synchronized Order getActiveOrder(long orderId) {
+        RestingOrder node = activeOrders.get(orderId);
+        return node == null ? null : node.order;
     }
 
-    public Map<String, Order> getActiveOrders() {
-        return activeOrders;
+    public synchronized int getActiveOrderCount() {
+        return activeOrders.size();
     }
 }
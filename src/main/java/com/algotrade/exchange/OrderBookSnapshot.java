@@ -0,0 +1,76 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+
+/**
+ * Point-in-time copy of the resting orders of one book: pending auction market
+ * orders, then bids, then asks, each in priority order. Stored column-wise so a large book copies quickly while the
+ * book is held. {@code sequence} is the journal sequence the copy reflects.
+ */
+public class OrderBookSnapshot {
+    private final String symbol;
+    private final long sequence;
+    private final boolean auction;
+    private final int pendingMarketOrders;
+    private final long[] orderIds;
+    private final Side[] sides;
+    private final OrderType[] orderTypes;
+    private final long[] priceTicks;
+    private final long[] quantities;
+
+    public OrderBookSnapshot(String symbol, long sequence, boolean auction, int pendingMarketOrders, long[] orderIds, Side[] sides, OrderType[] orderTypes,
+                             long[] priceTicks, long[] quantities) {
+        this.symbol = symbol;
+        this.sequence = sequence;
+        this.auction = auction;
+        this.pendingMarketOrders = pendingMarketOrders;
+        this.orderIds = orderIds;
+        this.sides = sides;
+        this.orderTypes = orderTypes;
+        this.priceTicks = priceTicks;
+        this.quantities = quantities;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /** Whether the book was in its call phase. */
+    public boolean isAuction() {
+        return auction;
+    }
+
+    /** The first this many orders are market orders waiting for the next uncross, not resting in the ladder. */
+    public int getPendingMarketOrders() {
+        return pendingMarketOrders;
+    }
+
+    public int size() {
+        return orderIds.length;
+    }
+
+    public long getOrderId(int i) {
+        return orderIds[i];
+    }
+
+    public Side getSide(int i) {
+        return sides[i];
+    }
+
+    public OrderType getOrderType(int i) {
+        return orderTypes[i];
+    }
+
+    public long getPriceTicks(int i) {
+        return priceTicks[i];
+    }
+
+    public long getQuantity(int i) {
+        return quantities[i];
+    }
+}
@@ -0,0 +1,31 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.Order;
+
+/**
+ * Observes every state change an {@link OrderBook} applies, in the exact order
+ * it applies them: accepted orders, amends, cancels, fills and auction phase changes. Replaying these
+ * events against an empty book reproduces its state, which is what the journal
+ * relies on. Called on the matching thread while the book is held.
+ */
+public interface OrderEventListener extends TradeListener {
+    /** A new order reached the book and is about to be matched. */
+    void onOrderAccepted(Order order);
+
+    /** A resting order is about to be amended; {@code order} still holds its old price and quantity. */
+    void onOrderAmended(Order order, long newPriceTicks, long newQuantity);
+
+    /** A resting order was removed; {@code order} holds the quantity that was left. */
+    void onOrderCancelled(Order order);
+
+    default void onAuctionStarted(String symbol) {
+    }
+
+    /** An uncross is about to run; its fills follow as trades. */
+    default void onUncross(String symbol) {
+    }
+
+    /** The final uncross has run; any fills of leftover market orders follow. */
+    default void onAuctionEnded(String symbol) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.Order;
+
+import java.util.Collection;
+
+/**
+ * All resting orders at a single price, kept in arrival order (FIFO) so that
+ * fills respect price-time priority. The queue is an intrusive doubly linked
+ * list of {@link RestingOrder} nodes, which makes removal from the middle O(1).
+ * The level also keeps the aggregated remaining quantity of its orders for L2 depth.
+ */
+class PriceLevel {
+    private final long price; // In ticks
+    private RestingOrder head;
+    private RestingOrder tail;
+    private int size;
+    private long totalQuantity;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    long getPrice() {
+        return price;
+    }
+
+    void add(RestingOrder node) {
+        node.level = this;
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        size++;
+        totalQuantity += node.order.getQuantity();
+    }
+
+    void remove(RestingOrder node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.level = null;
+        size--;
+        totalQuantity -= node.order.getQuantity();
+    }
+
+    /** Accounts for quantity taken from an order that stays in the level (fill or amend-down). */
+    void reduceQuantity(long quantity) {
+        totalQuantity -= quantity;
+    }
+
+    long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    RestingOrder peek() {
+        return head;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    RestingOrder head() {
+        return head;
+    }
+
+    void copyOrdersTo(Collection<Order> target) {
+        for (RestingOrder node = head; node != null; node = node.next) {
+            target.add(node.order);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.Order;
+
+/**
+ * Node of the intrusive FIFO list kept by a {@link PriceLevel}. An order id
+ * maps to its node, and the node links back to its level, so a resting order
+ * can be unlinked in constant time on cancel or amend.
+ */
+class RestingOrder {
+    final Order order;
+    PriceLevel level;
+    RestingOrder prev;
+    RestingOrder next;
+
+    RestingOrder(Order order) {
+        this.order = order;
+    }
+}
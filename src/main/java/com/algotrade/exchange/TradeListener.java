@@ -0,0 +1,21 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.Order;
+
+/**
+ * Receives fills as they happen inside the matching loop, without a {@link com.algotrade.model.Trade}
+ * or result list being allocated. Called on the matching thread while the book
+ * is held, so implementations must be quick and must not call back into the book.
+ * Both orders' quantities already reflect the fill when the listener runs.
+ */
+@FunctionalInterface
+public interface TradeListener {
+    /**
+     * @param tradeId    id assigned to this fill by the book's trade id generator
+     * @param takerOrder the incoming order that crossed the book
+     * @param makerOrder the resting order it traded against
+     * @param priceTicks execution price in ticks (the maker's price)
+     * @param quantity   filled quantity
+     */
+    void onTrade(long tradeId, Order takerOrder, Order makerOrder, long priceTicks, long quantity);
+}
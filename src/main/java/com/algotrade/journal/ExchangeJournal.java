@@ -0,0 +1,368 @@
+package com.algotrade.journal;
+
+import com.algotrade.exchange.OrderEventListener;
+import com.algotrade.model.Order;
+import com.algotrade.model.Prices;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only journal of everything the exchange applies: accepted orders,
+ * amends, cancels, fills and auction phases, each stamped with a journal sequence number.
+ * <p>
+ * Matching threads never write the file: each event claims the next sequence
+ * and copies its fields into a preallocated ring without locking, so books on
+ * different threads do not serialize on the journal. A single background writer
+ * encodes the records into memory-mapped segment files and forces them to disk
+ * every {@code forceInterval} records and whenever it catches up, advancing
+ * {@link #getDurableSequence()}. A full ring makes the event wait for the writer;
+ * journal records are never dropped.
+ * <p>
+ * Attach it with {@code Exchange.addOrderEventListener} after recovery. Each
+ * segment redefines the symbols it uses so segments can be read on their own.
+ */
+public class ExchangeJournal implements OrderEventListener, Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final int DEFAULT_FORCE_INTERVAL = 4096;
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int STRIDE = 6; // longs per record: meta, five fields
+    private static final int MAX_BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = 100_000;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int forceInterval;
+
+    // Handoff ring, written by matching threads
+    private final long[] records;
+    private final String[] symbols;
+    private final AtomicLongArray published; // Ring sequence last published into each slot
+    private final int mask;
+    private final long baseSequence; // Journal sequence before the first record of this instance
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong(); // Next ring sequence the writer will read
+    private volatile long durableSequence;
+    private volatile Throwable failure;
+    private volatile boolean running = true;
+    private final Thread writer;
+    private boolean closed; // Guarded by this
+
+    // Writer thread only, then the closing thread once it has stopped
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int segmentIndex;
+    private int position;
+    private long writtenSequence;
+    private int unforcedRecords;
+
+    public ExchangeJournal(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_FORCE_INTERVAL);
+    }
+
+    public ExchangeJournal(Path directory, int segmentSize, int forceInterval) throws IOException {
+        this(directory, segmentSize, forceInterval, DEFAULT_CAPACITY);
+    }
+
+    /** @param capacity records the ring holds before events wait for the writer, a power of two */
+    public ExchangeJournal(Path directory, int segmentSize, int forceInterval, int capacity) throws IOException {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        if (forceInterval <= 0) {
+            throw new IllegalArgumentException("Force interval must be positive: " + forceInterval);
+        }
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.forceInterval = forceInterval;
+        this.records = new long[capacity * STRIDE];
+        this.symbols = new String[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        JournalReader reader = new JournalReader(directory);
+        this.baseSequence = reader.lastSequence();
+        this.writtenSequence = baseSequence;
+        this.durableSequence = baseSequence;
+        openSegment(reader.lastSegmentIndex() + 1);
+        this.writer = new Thread(this::runWriter, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void onOrderAccepted(Order order) {
+        append(JournalFormat.TYPE_ORDER_ACCEPTED | order.getSide().ordinal() << 8 | order.getOrderType().ordinal() << 16,
+                order.getSymbol(), order.getOrderId(), order.getPriceTicks(), order.getQuantity(), 0, 0);
+    }
+
+    @Override
+    public void onOrderAmended(Order order, long newPriceTicks, long newQuantity) {
+        append(JournalFormat.TYPE_ORDER_AMENDED, order.getSymbol(), order.getOrderId(), newPriceTicks, newQuantity, 0, 0);
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+        append(JournalFormat.TYPE_ORDER_CANCELLED, order.getSymbol(), order.getOrderId(), 0, 0, 0, 0);
+    }
+
+    @Override
+    public void onTrade(long tradeId, Order takerOrder, Order makerOrder, long priceTicks, long quantity) {
+        append(JournalFormat.TYPE_FILL, takerOrder.getSymbol(), tradeId, takerOrder.getOrderId(), makerOrder.getOrderId(),
+                priceTicks, quantity);
+    }
+
+    @Override
+    public void onAuctionStarted(String symbol) {
+        append(JournalFormat.TYPE_AUCTION_STARTED, symbol, 0, 0, 0, 0, 0);
+    }
+
+    @Override
+    public void onUncross(String symbol) {
+        append(JournalFormat.TYPE_UNCROSS, symbol, 0, 0, 0, 0, 0);
+    }
+
+    @Override
+    public void onAuctionEnded(String symbol) {
+        append(JournalFormat.TYPE_AUCTION_ENDED, symbol, 0, 0, 0, 0, 0);
+    }
+
+    /** Claims the next sequence and hands the record to the writer; waits only while the ring is full. */
+    private void append(long meta, String symbol, long f0, long f1, long f2, long f3, long f4) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            while (sequence - consumed.get() >= symbols.length) {
+                checkOpen();
+                Thread.onSpinWait();
+            }
+            checkOpen();
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        int base = slot * STRIDE;
+        records[base] = meta;
+        records[base + 1] = f0;
+        records[base + 2] = f1;
+        records[base + 3] = f2;
+        records[base + 4] = f3;
+        records[base + 5] = f4;
+        symbols[slot] = symbol;
+        published.lazySet(slot, sequence); // Release: the fields above are visible to the writer
+    }
+
+    private void checkOpen() {
+        if (failure != null) {
+            throw new IllegalStateException("Journal writer failed", failure);
+        }
+        if (!running) {
+            throw new IllegalStateException("Journal is closed");
+        }
+    }
+
+    /** Sequence number of the last record appended; it may not be on disk yet. */
+    public long getSequence() {
+        return baseSequence + claimed.get();
+    }
+
+    /** Sequence number of the last record forced to disk. */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /** Waits until everything appended before this call has been forced to disk. */
+    public void flush() {
+        long target = getSequence();
+        while (durableSequence < target) {
+            if (failure != null) {
+                throw new IllegalStateException("Journal writer failed", failure);
+            }
+            if (!writer.isAlive()) {
+                return;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw new IOException("Journal writer failed", failure);
+        }
+    }
+
+    private void runWriter() {
+        long next = 0;
+        try {
+            while (true) {
+                int batch = 0;
+                while (batch < MAX_BATCH && published.get((int) next & mask) == next) {
+                    write((int) next & mask, baseSequence + next + 1);
+                    consumed.lazySet(++next); // Slot may be reused from here on
+                    batch++;
+                }
+                if (batch > 0) {
+                    if (unforcedRecords >= forceInterval) {
+                        force();
+                    }
+                } else if (unforcedRecords > 0) {
+                    force(); // Caught up: make everything written so far durable
+                } else if (!running && claimed.get() == next) {
+                    return;
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    private void write(int slot, long sequence) {
+        int base = slot * STRIDE;
+        long meta = records[base];
+        String symbol = symbols[slot];
+        symbols[slot] = null;
+        int type = (int) meta & 0xFF;
+        int size = recordSize(type);
+        int symbolId = prepare(symbol, size, sequence);
+        int start = position;
+        buffer.putInt(start + 16, symbolId);
+        switch (type) {
+            case JournalFormat.TYPE_ORDER_ACCEPTED:
+                buffer.put(start + 20, (byte) (meta >>> 8));
+                buffer.put(start + 21, (byte) (meta >>> 16));
+                putFields(start, base, 3);
+                break;
+            case JournalFormat.TYPE_ORDER_AMENDED:
+                putFields(start, base, 3);
+                break;
+            case JournalFormat.TYPE_ORDER_CANCELLED:
+                putFields(start, base, 1);
+                break;
+            case JournalFormat.TYPE_FILL:
+                putFields(start, base, 5);
+                break;
+            default: // Auction phases carry only the symbol
+                break;
+        }
+        commit(start, type, size, sequence);
+    }
+
+    private void putFields(int start, int base, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(start + 24 + i * Long.BYTES, records[base + 1 + i]);
+        }
+    }
+
+    private static int recordSize(int type) {
+        switch (type) {
+            case JournalFormat.TYPE_ORDER_ACCEPTED:
+                return JournalFormat.ORDER_ACCEPTED_SIZE;
+            case JournalFormat.TYPE_ORDER_AMENDED:
+                return JournalFormat.ORDER_AMENDED_SIZE;
+            case JournalFormat.TYPE_ORDER_CANCELLED:
+                return JournalFormat.ORDER_CANCELLED_SIZE;
+            case JournalFormat.TYPE_FILL:
+                return JournalFormat.FILL_SIZE;
+            default:
+                return JournalFormat.AUCTION_SIZE;
+        }
+    }
+
+    private void force() {
+        buffer.force();
+        unforcedRecords = 0;
+        durableSequence = writtenSequence;
+    }
+
+    /**
+     * Rolls if needed and returns the segment-local symbol id, defining the symbol first if this segment lacks it.
+     * A definition carries the sequence of the record before it, so it never claims a number of its own.
+     */
+    private int prepare(String symbol, int recordSize, long sequence) {
+        if (position + recordSize + Integer.BYTES > segmentSize) {
+            rollSegment();
+        }
+        Integer id = symbolIds.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        byte[] name = symbol.getBytes(StandardCharsets.UTF_8);
+        int size = JournalFormat.align(JournalFormat.SYMBOL_FIXED_SIZE + name.length);
+        if (position + size + recordSize + Integer.BYTES > segmentSize) {
+            rollSegment();
+        }
+        int start = position;
+        int symbolId = symbolIds.size();
+        buffer.putInt(start + 16, symbolId);
+        buffer.putShort(start + 20, (short) name.length);
+        buffer.putDouble(start + 24, Prices.getTickSize(symbol));
+        for (int i = 0; i < name.length; i++) {
+            buffer.put(start + JournalFormat.SYMBOL_FIXED_SIZE + i, name[i]);
+        }
+        commit(start, JournalFormat.TYPE_SYMBOL, size, sequence - 1);
+        symbolIds.put(symbol, symbolId);
+        return symbolId;
+    }
+
+    private void commit(int start, int type, int size, long sequence) {
+        buffer.putInt(start + 4, type);
+        buffer.putLong(start + 8, sequence);
+        buffer.putInt(start, size); // Length last: a reader never sees a half-written record
+        position = start + size;
+        writtenSequence = sequence;
+        unforcedRecords++;
+    }
+
+    private void rollSegment() {
+        try {
+            force();
+            channel.close();
+            openSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll journal segment", e);
+        }
+    }
+
+    private void openSegment(int index) throws IOException {
+        Path path = JournalFormat.segmentPath(directory, index);
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        segmentIndex = index;
+        position = 0;
+        symbolIds.clear();
+    }
+}
@@ -0,0 +1,59 @@
+package com.algotrade.journal;
+
+import java.nio.file.Path;
+
+/**
+ * On-disk layout shared by {@link ExchangeJournal} and {@link JournalReader}.
+ * Every record starts with a 16 byte header: {@code int length | int type | long sequence},
+ * little-endian, 8 byte aligned. The length is written last so a zero length marks
+ * the end of the valid data in a segment.
+ */
+final class JournalFormat {
+    static final int HEADER_SIZE = 16;
+
+    static final int TYPE_SYMBOL = 1;
+    static final int TYPE_ORDER_ACCEPTED = 2;
+    static final int TYPE_ORDER_CANCELLED = 3;
+    static final int TYPE_ORDER_AMENDED = 4;
+    static final int TYPE_FILL = 5;
+    static final int TYPE_AUCTION_STARTED = 6;
+    static final int TYPE_UNCROSS = 7;
+    static final int TYPE_AUCTION_ENDED = 8;
+
+    // symbolId | length | pad | tickSize | utf-8 name, padded to 8
+    static final int SYMBOL_FIXED_SIZE = HEADER_SIZE + 16;
+    // symbolId | side | type | pad | orderId | priceTicks | quantity
+    static final int ORDER_ACCEPTED_SIZE = HEADER_SIZE + 32;
+    // symbolId | pad | orderId
+    static final int ORDER_CANCELLED_SIZE = HEADER_SIZE + 16;
+    // symbolId | pad | orderId | priceTicks | quantity
+    static final int ORDER_AMENDED_SIZE = HEADER_SIZE + 32;
+    // symbolId | pad | tradeId | takerOrderId | makerOrderId | priceTicks | quantity
+    static final int FILL_SIZE = HEADER_SIZE + 48;
+    // symbolId | pad; used by the auction phase records
+    static final int AUCTION_SIZE = HEADER_SIZE + 8;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private JournalFormat() {
+    }
+
+    static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    static int segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.algotrade.journal;
+
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+
+/**
+ * Callbacks for {@link JournalReader}. Records are delivered in sequence order
+ * without allocating per record; implement only the events you need.
+ */
+public interface JournalHandler {
+    default void onSymbol(String symbol, double tickSize) {
+    }
+
+    default void onOrderAccepted(long sequence, String symbol, long orderId, Side side, OrderType orderType,
+                                 long priceTicks, long quantity) {
+    }
+
+    default void onOrderAmended(long sequence, String symbol, long orderId, long newPriceTicks, long newQuantity) {
+    }
+
+    default void onOrderCancelled(long sequence, String symbol, long orderId) {
+    }
+
+    default void onAuctionStarted(long sequence, String symbol) {
+    }
+
+    default void onUncross(long sequence, String symbol) {
+    }
+
+    default void onAuctionEnded(long sequence, String symbol) {
+    }
+
+    default void onFill(long sequence, String symbol, long tradeId, long takerOrderId, long makerOrderId,
+                        long priceTicks, long quantity) {
+    }
+}
@@ -0,0 +1,181 @@
+package com.algotrade.journal;
+
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the segments written by {@link ExchangeJournal} in order. Segments are
+ * memory-mapped read-only and decoded in place; reading stops at the first
+ * zero-length or truncated record of each segment.
+ */
+public class JournalReader {
+    private static final Side[] SIDES = Side.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private final Path directory;
+
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /** Replays every record. */
+    public long replay(JournalHandler handler) throws IOException {
+        return replay(handler, 0);
+    }
+
+    /**
+     * Replays records with a sequence greater than {@code afterSequence}. Segments
+     * holding only earlier records are not opened, so restoring from a recent
+     * snapshot reads only the tail of the journal; symbol definitions of every
+     * segment that is read are delivered. Returns the last sequence read.
+     */
+    public long replay(JournalHandler handler, long afterSequence) throws IOException {
+        List<Path> segments = segments();
+        long lastSequence = afterSequence;
+        for (int i = firstSegmentAfter(segments, afterSequence); i < segments.size(); i++) {
+            lastSequence = Math.max(lastSequence, readSegment(segments.get(i), handler, afterSequence));
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Index of the first segment that may hold a record after {@code afterSequence}.
+     * Every record of a segment is at or below the first sequence of the next
+     * non-empty one, so only segment headers are read, newest first.
+     */
+    private static int firstSegmentAfter(List<Path> segments, long afterSequence) throws IOException {
+        for (int i = segments.size() - 1; i > 0; i--) {
+            long sequence = firstSequence(segments.get(i));
+            if (sequence >= 0 && sequence <= afterSequence) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /** Sequence of the segment's first record, -1 if it has none. */
+    private static long firstSequence(Path segment) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(JournalFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // Read the whole header
+            }
+        }
+        if (header.hasRemaining() || header.getInt(0) < JournalFormat.HEADER_SIZE) {
+            return -1;
+        }
+        return header.getLong(8);
+    }
+
+    /** Sequence of the last complete record on disk, 0 if the journal is empty. */
+    public long lastSequence() throws IOException {
+        List<Path> segments = segments();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            long sequence = readSegment(segments.get(i), new JournalHandler() { }, Long.MAX_VALUE);
+            if (sequence > 0) {
+                return sequence;
+            }
+        }
+        return 0;
+    }
+
+    int lastSegmentIndex() throws IOException {
+        List<Path> segments = segments();
+        return segments.isEmpty() ? -1 : JournalFormat.segmentIndex(segments.get(segments.size() - 1));
+    }
+
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(JournalFormat::isSegment)
+                    .sorted(Comparator.comparingInt(JournalFormat::segmentIndex))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private long readSegment(Path segment, JournalHandler handler, long afterSequence) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        String[] symbols = new String[16];
+        long lastSequence = 0;
+        int limit = buffer.limit();
+        int position = 0;
+        while (position + JournalFormat.HEADER_SIZE <= limit) {
+            int length = buffer.getInt(position);
+            if (length < JournalFormat.HEADER_SIZE || position + length > limit) {
+                break;
+            }
+            int type = buffer.getInt(position + 4);
+            long sequence = buffer.getLong(position + 8);
+            lastSequence = sequence;
+            if (type == JournalFormat.TYPE_SYMBOL) {
+                int symbolId = buffer.getInt(position + 16);
+                byte[] name = new byte[buffer.getShort(position + 20)];
+                buffer.get(position + JournalFormat.SYMBOL_FIXED_SIZE, name);
+                if (symbolId >= symbols.length) {
+                    symbols = Arrays.copyOf(symbols, Math.max(symbols.length * 2, symbolId + 1));
+                }
+                symbols[symbolId] = new String(name, StandardCharsets.UTF_8);
+                handler.onSymbol(symbols[symbolId], buffer.getDouble(position + 24));
+            } else if (sequence > afterSequence) {
+                dispatch(buffer, position, type, sequence, symbols[buffer.getInt(position + 16)], handler);
+            }
+            position += length;
+        }
+        return lastSequence;
+    }
+
+    private static void dispatch(MappedByteBuffer buffer, int position, int type, long sequence, String symbol,
+                                 JournalHandler handler) {
+        switch (type) {
+            case JournalFormat.TYPE_ORDER_ACCEPTED:
+                handler.onOrderAccepted(sequence, symbol, buffer.getLong(position + 24),
+                        SIDES[buffer.get(position + 20)], ORDER_TYPES[buffer.get(position + 21)],
+                        buffer.getLong(position + 32), buffer.getLong(position + 40));
+                break;
+            case JournalFormat.TYPE_ORDER_CANCELLED:
+                handler.onOrderCancelled(sequence, symbol, buffer.getLong(position + 24));
+                break;
+            case JournalFormat.TYPE_ORDER_AMENDED:
+                handler.onOrderAmended(sequence, symbol, buffer.getLong(position + 24),
+                        buffer.getLong(position + 32), buffer.getLong(position + 40));
+                break;
+            case JournalFormat.TYPE_FILL:
+                handler.onFill(sequence, symbol, buffer.getLong(position + 24), buffer.getLong(position + 32),
+                        buffer.getLong(position + 40), buffer.getLong(position + 48), buffer.getLong(position + 56));
+                break;
+            case JournalFormat.TYPE_AUCTION_STARTED:
+                handler.onAuctionStarted(sequence, symbol);
+                break;
+            case JournalFormat.TYPE_UNCROSS:
+                handler.onUncross(sequence, symbol);
+                break;
+            case JournalFormat.TYPE_AUCTION_ENDED:
+                handler.onAuctionEnded(sequence, symbol);
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type " + type + " at sequence " + sequence);
+        }
+    }
+}
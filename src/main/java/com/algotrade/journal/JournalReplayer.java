@@ -0,0 +1,145 @@
+package com.algotrade.journal;
+
+import com.algotrade.exchange.Exchange;
+import com.algotrade.exchange.TradeListener;
+import com.algotrade.model.IdGenerator;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Prices;
+import com.algotrade.model.SequenceIdGenerator;
+import com.algotrade.model.Side;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Rebuilds exchange state by re-applying journalled orders, amends and cancels.
+ * Matching is deterministic, so fills are regenerated rather than replayed; the
+ * journalled fills are only used to move the exchange's trade id generator past
+ * the highest trade id, as the journal may not start at the exchange's first trade.
+ * Replay into an exchange that has no journal attached yet. With a snapshot,
+ * records a book already contains are skipped using its per-book sequence.
+ */
+public class JournalReplayer implements JournalHandler {
+    private static final TradeListener IGNORE_FILLS = (tradeId, taker, maker, priceTicks, quantity) -> { };
+
+    private final Exchange exchange;
+    private SnapshotStore.Recovery snapshot;
+    private long lastSequence;
+    private long maxOrderId;
+    private long maxTradeId;
+
+    public JournalReplayer(Exchange exchange) {
+        this.exchange = exchange;
+    }
+
+    /**
+     * Replays the journal in {@code directory} into {@code exchange} and moves the
+     * global order id generator and the exchange's trade id generator past every
+     * recovered id.
+     */
+    public static JournalReplayer recover(Path directory, Exchange exchange) throws IOException {
+        return replay(directory, new JournalReplayer(exchange), 0);
+    }
+
+    /**
+     * Loads the newest snapshot from {@code snapshotDirectory}, if any, then replays
+     * only the journal records each book has not seen yet.
+     */
+    public static JournalReplayer recover(Path journalDirectory, Path snapshotDirectory, Exchange exchange) throws IOException {
+        JournalReplayer replayer = new JournalReplayer(exchange);
+        replayer.snapshot = new SnapshotStore(snapshotDirectory).restoreLatest(exchange).orElse(null);
+        return replay(journalDirectory, replayer, replayer.snapshot == null ? 0 : replayer.snapshot.getStartSequence());
+    }
+
+    private static JournalReplayer replay(Path directory, JournalReplayer replayer, long afterSequence) throws IOException {
+        replayer.lastSequence = new JournalReader(directory).replay(replayer, afterSequence);
+        advance(Order.getIdGenerator(), replayer.maxOrderId);
+        advance(replayer.exchange.getTradeIdGenerator(), replayer.maxTradeId);
+        return replayer;
+    }
+
+    private static void advance(IdGenerator generator, long id) {
+        if (generator instanceof SequenceIdGenerator) {
+            ((SequenceIdGenerator) generator).advanceTo(id);
+        }
+    }
+
+    private boolean inSnapshot(long sequence, String symbol) {
+        return snapshot != null && sequence <= snapshot.getBookSequence(symbol);
+    }
+
+    @Override
+    public void onSymbol(String symbol, double tickSize) {
+        if (exchange.getOrderBook(symbol) == null) {
+            exchange.addSymbol(symbol, tickSize);
+        } else {
+            Prices.setTickSize(symbol, tickSize);
+        }
+    }
+
+    @Override
+    public void onOrderAccepted(long sequence, String symbol, long orderId, Side side, OrderType orderType,
+                                long priceTicks, long quantity) {
+        if (inSnapshot(sequence, symbol)) {
+            return;
+        }
+        exchange.placeOrder(new Order(orderId, symbol, orderType, side, priceTicks, quantity), IGNORE_FILLS);
+        maxOrderId = Math.max(maxOrderId, orderId);
+    }
+
+    @Override
+    public void onOrderAmended(long sequence, String symbol, long orderId, long newPriceTicks, long newQuantity) {
+        if (inSnapshot(sequence, symbol)) {
+            return;
+        }
+        exchange.amendOrder(symbol, orderId, newPriceTicks, newQuantity);
+    }
+
+    @Override
+    public void onOrderCancelled(long sequence, String symbol, long orderId) {
+        if (inSnapshot(sequence, symbol)) {
+            return;
+        }
+        exchange.cancelOrder(symbol, orderId);
+    }
+
+    @Override
+    public void onAuctionStarted(long sequence, String symbol) {
+        if (!inSnapshot(sequence, symbol)) {
+            exchange.startAuction(symbol);
+        }
+    }
+
+    @Override
+    public void onUncross(long sequence, String symbol) {
+        if (!inSnapshot(sequence, symbol)) {
+            exchange.uncross(symbol, IGNORE_FILLS);
+        }
+    }
+
+    @Override
+    public void onAuctionEnded(long sequence, String symbol) {
+        if (!inSnapshot(sequence, symbol)) {
+            exchange.endAuction(symbol, IGNORE_FILLS);
+        }
+    }
+
+    @Override
+    public void onFill(long sequence, String symbol, long tradeId, long takerOrderId, long makerOrderId,
+                       long priceTicks, long quantity) {
+        maxTradeId = Math.max(maxTradeId, tradeId);
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getMaxOrderId() {
+        return maxOrderId;
+    }
+
+    public long getMaxTradeId() {
+        return maxTradeId;
+    }
+}
@@ -0,0 +1,181 @@
+package com.algotrade.journal;
+
+import com.algotrade.exchange.Exchange;
+import com.algotrade.exchange.OrderBook;
+import com.algotrade.exchange.OrderBookSnapshot;
+import com.algotrade.model.IdGenerator;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Prices;
+import com.algotrade.model.SequenceIdGenerator;
+import com.algotrade.model.Side;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Binary point-in-time snapshots of every order book in an {@link Exchange}.
+ * Each book is copied under its own lock together with the journal sequence it
+ * reflects, then written outside the lock, so matching only pauses for the copy.
+ * On restart, {@link #restoreLatest} loads the newest snapshot and returns the
+ * per-symbol sequences after which the journal must be replayed.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final Side[] SIDES = Side.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Writes a snapshot of {@code exchange}; {@code journalSequence} is usually
+     * {@code journal::getSequence}. Returns the snapshot file.
+     */
+    public Path write(Exchange exchange, LongSupplier journalSequence) throws IOException {
+        long startSequence = journalSequence.getAsLong();
+        List<OrderBookSnapshot> books = new ArrayList<>();
+        for (OrderBook orderBook : exchange.getOrderBooks()) {
+            books.add(orderBook.snapshot(journalSequence));
+        }
+        // Read after the copies so the counters cover every id in them
+        long lastOrderId = lastId(Order.getIdGenerator());
+        long lastTradeId = lastId(exchange.getTradeIdGenerator());
+
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, startSequence, SUFFIX));
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(startSequence);
+            out.writeLong(lastOrderId);
+            out.writeLong(lastTradeId);
+            out.writeInt(books.size());
+            for (OrderBookSnapshot book : books) {
+                out.writeUTF(book.getSymbol());
+                out.writeDouble(Prices.getTickSize(book.getSymbol()));
+                out.writeLong(book.getSequence());
+                out.writeBoolean(book.isAuction());
+                out.writeInt(book.getPendingMarketOrders());
+                out.writeInt(book.size());
+                for (int i = 0; i < book.size(); i++) {
+                    out.writeLong(book.getOrderId(i));
+                    out.writeByte(book.getSide(i).ordinal());
+                    out.writeByte(book.getOrderType(i).ordinal());
+                    out.writeLong(book.getPriceTicks(i));
+                    out.writeLong(book.getQuantity(i));
+                }
+            }
+        }
+        return Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** The newest complete snapshot, if any. */
+    public Optional<Path> latest() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).max(Path::compareTo); // Zero-padded sequence, so name order is sequence order
+        }
+    }
+
+    /**
+     * Loads the newest snapshot into {@code exchange}, which must not hold any
+     * orders yet, and advances the order and trade id generators past it.
+     */
+    public Optional<Recovery> restoreLatest(Exchange exchange) throws IOException {
+        Optional<Path> latest = latest();
+        if (latest.isEmpty()) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(latest.get()), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a snapshot file: " + latest.get());
+            }
+            long startSequence = in.readLong();
+            long lastOrderId = in.readLong();
+            long lastTradeId = in.readLong();
+            int bookCount = in.readInt();
+            Map<String, Long> bookSequences = new HashMap<>();
+            for (int b = 0; b < bookCount; b++) {
+                String symbol = in.readUTF();
+                double tickSize = in.readDouble();
+                long sequence = in.readLong();
+                boolean auction = in.readBoolean();
+                int pendingMarketOrders = in.readInt();
+                int size = in.readInt();
+                long[] orderIds = new long[size];
+                Side[] sides = new Side[size];
+                OrderType[] orderTypes = new OrderType[size];
+                long[] priceTicks = new long[size];
+                long[] quantities = new long[size];
+                for (int i = 0; i < size; i++) {
+                    orderIds[i] = in.readLong();
+                    sides[i] = SIDES[in.readByte()];
+                    orderTypes[i] = ORDER_TYPES[in.readByte()];
+                    priceTicks[i] = in.readLong();
+                    quantities[i] = in.readLong();
+                }
+                exchange.addSymbol(symbol, tickSize);
+                exchange.getOrderBook(symbol).restore(
+                        new OrderBookSnapshot(symbol, sequence, auction, pendingMarketOrders, orderIds, sides, orderTypes, priceTicks, quantities));
+                bookSequences.put(symbol, sequence);
+            }
+            advance(Order.getIdGenerator(), lastOrderId);
+            advance(exchange.getTradeIdGenerator(), lastTradeId);
+            return Optional.of(new Recovery(startSequence, bookSequences));
+        }
+    }
+
+    private static long lastId(IdGenerator generator) {
+        return generator instanceof SequenceIdGenerator ? ((SequenceIdGenerator) generator).lastId() : 0;
+    }
+
+    private static void advance(IdGenerator generator, long id) {
+        if (generator instanceof SequenceIdGenerator) {
+            ((SequenceIdGenerator) generator).advanceTo(id);
+        }
+    }
+
+    /** Where journal replay has to resume after a snapshot was loaded. */
+    public static class Recovery {
+        private final long startSequence;
+        private final Map<String, Long> bookSequences;
+
+        Recovery(long startSequence, Map<String, Long> bookSequences) {
+            this.startSequence = startSequence;
+            this.bookSequences = bookSequences;
+        }
+
+        /** Journal sequence when the snapshot started; nothing at or before it needs replaying. */
+        public long getStartSequence() {
+            return startSequence;
+        }
+
+        /** Last journal sequence already contained in the given book, or the start sequence for books not in the snapshot. */
+        public long getBookSequence(String symbol) {
+            return bookSequences.getOrDefault(symbol, startSequence);
+        }
+    }
+}
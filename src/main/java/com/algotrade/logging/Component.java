@@ -0,0 +1,11 @@
+package com.algotrade.logging;
+
+/** Source of an event; each component has its own level threshold. */
+public enum Component {
+    PIPELINE,
+    STRATEGY,
+    RISK,
+    EXECUTION,
+    METRICS,
+    FEED
+}
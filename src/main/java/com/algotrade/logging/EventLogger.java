@@ -0,0 +1,311 @@
+package com.algotrade.logging;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous structured logger for hot paths. Callers write a fixed-layout
+ * record (event type, component, level, timestamp, five longs and a reference to
+ * an existing string) into a preallocated ring without allocating or locking; a
+ * background thread formats the records and writes them to a channel in large
+ * NIO writes. When the ring is full, events are dropped and counted rather than
+ * blocking the caller. Levels are filtered per {@link Component} before anything
+ * is written.
+ * <p>
+ * The default logger writes to the file named by {@code -Dalgotrade.log}
+ * ({@value #DEFAULT_PATH} unless set); {@code -Dalgotrade.log=console} sends it
+ * to standard output instead.
+ */
+public class EventLogger implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final String PATH_PROPERTY = "algotrade.log";
+    public static final String DEFAULT_PATH = "logs/algotrade.log";
+    public static final String CONSOLE = "console";
+
+    private static final int STRIDE = 8; // longs per record: meta, timestamp, 5 args, padding
+    private static final int MAX_BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = 200_000;
+    private static final EventType[] TYPES = EventType.values();
+    private static final Component[] COMPONENTS = Component.values();
+    private static final Level[] LEVELS = Level.values();
+
+    private static volatile EventLogger defaultLogger;
+
+    private final long[] records;
+    private final String[] texts;
+    private final AtomicLongArray published; // Sequence last published into each slot
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong(); // Next sequence the writer will read
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long written; // Every sequence below this has reached the channel
+    private volatile int[] thresholds; // Copy-on-write, indexed by component
+
+    private final WritableByteChannel channel;
+    private final boolean ownsChannel;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Writer thread only
+    private final StringBuilder line = new StringBuilder(4096);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(1 << 16);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private long reportedDrops;
+
+    public EventLogger(WritableByteChannel channel) {
+        this(channel, DEFAULT_CAPACITY, false);
+    }
+
+    EventLogger(WritableByteChannel channel, int capacity, boolean ownsChannel) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.records = new long[capacity * STRIDE];
+        this.texts = new String[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.thresholds = new int[COMPONENTS.length];
+        Arrays.fill(thresholds, Level.INFO.ordinal());
+        this.channel = channel;
+        this.ownsChannel = ownsChannel;
+        this.writer = new Thread(this::runWriter, "event-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Appends to {@code file}, creating it and its directory if needed. */
+    public static EventLogger open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new EventLogger(channel, DEFAULT_CAPACITY, true);
+    }
+
+    /** Writes to the process's standard output without going through {@code System.out}; opt in explicitly. */
+    public static EventLogger console() {
+        return new EventLogger(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), DEFAULT_CAPACITY, false);
+    }
+
+    /**
+     * The logger used by the engine's components, opened from {@code -Dalgotrade.log}
+     * on first use unless replaced. Components pick it up when constructed, so
+     * replace it before building them.
+     */
+    public static EventLogger getDefault() {
+        EventLogger logger = defaultLogger;
+        if (logger == null) {
+            synchronized (EventLogger.class) {
+                if (defaultLogger == null) {
+                    EventLogger configured = configured();
+                    Runtime.getRuntime().addShutdownHook(new Thread(configured::flush, "event-logger-flush"));
+                    defaultLogger = configured;
+                }
+                logger = defaultLogger;
+            }
+        }
+        return logger;
+    }
+
+    private static EventLogger configured() {
+        String path = System.getProperty(PATH_PROPERTY, DEFAULT_PATH);
+        if (CONSOLE.equalsIgnoreCase(path)) {
+            return console();
+        }
+        try {
+            return open(Path.of(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open event log " + path, e);
+        }
+    }
+
+    public static void setDefault(EventLogger logger) {
+        defaultLogger = logger;
+    }
+
+    public void setLevel(Component component, Level level) {
+        int[] updated = thresholds.clone();
+        updated[component.ordinal()] = level.ordinal();
+        thresholds = updated;
+    }
+
+    public void setLevel(Level level) {
+        int[] updated = new int[COMPONENTS.length];
+        Arrays.fill(updated, level.ordinal());
+        thresholds = updated;
+    }
+
+    public boolean isEnabled(Component component, Level level) {
+        return level.ordinal() >= thresholds[component.ordinal()];
+    }
+
+    public void log(Component component, Level level, EventType type, String text) {
+        log(component, level, type, text, 0, 0, 0, 0, 0);
+    }
+
+    public void log(Component component, Level level, EventType type, String text, long a0) {
+        log(component, level, type, text, a0, 0, 0, 0, 0);
+    }
+
+    public void log(Component component, Level level, EventType type, String text, long a0, long a1) {
+        log(component, level, type, text, a0, a1, 0, 0, 0);
+    }
+
+    public void log(Component component, Level level, EventType type, String text, long a0, long a1, long a2) {
+        log(component, level, type, text, a0, a1, a2, 0, 0);
+    }
+
+    public void log(Component component, Level level, EventType type, String text, long a0, long a1, long a2, long a3) {
+        log(component, level, type, text, a0, a1, a2, a3, 0);
+    }
+
+    public void log(Component component, Level level, EventType type, String text,
+                    long a0, long a1, long a2, long a3, long a4) {
+        if (!isEnabled(component, level)) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed.get() >= texts.length) {
+                dropped.incrementAndGet(); // Ring full: never block the caller
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) sequence & mask;
+        int base = slot * STRIDE;
+        records[base] = type.ordinal() | component.ordinal() << 8 | level.ordinal() << 16;
+        records[base + 1] = System.currentTimeMillis();
+        records[base + 2] = a0;
+        records[base + 3] = a1;
+        records[base + 4] = a2;
+        records[base + 5] = a3;
+        records[base + 6] = a4;
+        texts[slot] = text;
+        published.lazySet(slot, sequence); // Release: the fields above are visible to the writer
+    }
+
+    /** Events lost because the ring was full. */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /** Waits until everything logged before this call has been written to the channel. */
+    public void flush() {
+        long target = claimed.get();
+        while (written < target && writer.isAlive()) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+
+    private void runWriter() {
+        long next = 0;
+        while (true) {
+            int batch = 0;
+            while (batch < MAX_BATCH && published.get((int) next & mask) == next) {
+                formatRecord((int) next & mask);
+                consumed.lazySet(++next); // Slot may be reused from here on
+                batch++;
+            }
+            reportDrops();
+            if (line.length() > 0) {
+                writeLines();
+                written = next;
+            } else if (!running && claimed.get() == next) {
+                return;
+            } else {
+                if (claimed.get() == next) {
+                    written = next;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void formatRecord(int slot) {
+        int base = slot * STRIDE;
+        long meta = records[base];
+        String text = texts[slot];
+        texts[slot] = null;
+        line.append(Instant.ofEpochMilli(records[base + 1])).append(' ')
+                .append(LEVELS[(int) (meta >>> 16) & 0xFF]).append(' ')
+                .append(COMPONENTS[(int) (meta >>> 8) & 0xFF]).append(' ');
+        TYPES[(int) meta & 0xFF].format(line, text, records[base + 2], records[base + 3], records[base + 4],
+                records[base + 5], records[base + 6]);
+        line.append('\n');
+    }
+
+    private void reportDrops() {
+        long drops = dropped.get();
+        if (drops != reportedDrops) {
+            line.append(Instant.now()).append(" WARN PIPELINE ").append(drops - reportedDrops)
+                    .append(" log events dropped, ring full\n");
+            reportedDrops = drops;
+        }
+    }
+
+    private void writeLines() {
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+        try {
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, true);
+                if (result.isOverflow() || !chars.hasRemaining()) {
+                    drainBytes();
+                }
+                if (!chars.hasRemaining() && !result.isOverflow()) {
+                    break;
+                }
+            }
+            encoder.flush(bytes);
+            drainBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Event log write failed", e);
+        } finally {
+            line.setLength(0);
+        }
+    }
+
+    private void drainBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
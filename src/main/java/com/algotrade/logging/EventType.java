@@ -0,0 +1,87 @@
+package com.algotrade.logging;
+
+import com.algotrade.model.Prices;
+import com.algotrade.model.Side;
+
+/**
+ * Catalogue of loggable events. A record carries the event type, an optional
+ * text (a symbol or message that already exists, never built for the log) and up
+ * to five {@code long} arguments; the type knows how to render them. Rendering
+ * only happens on the logger's background thread.
+ */
+public enum EventType {
+    /** text=symbol, bid ticks, ask ticks, bid qty, ask qty */
+    MARKET_DATA {
+        @Override
+        void format(StringBuilder out, String text, long a0, long a1, long a2, long a3, long a4) {
+            out.append("Market data ").append(text).append(" bid=");
+            appendPrice(out, text, a0).append('x').append(a2).append(" ask=");
+            appendPrice(out, text, a1).append('x').append(a3);
+        }
+    },
+    /** text=symbol, order id, side ordinal, price ticks, quantity */
+    ORDER_REJECTED {
+        @Override
+        void format(StringBuilder out, String text, long a0, long a1, long a2, long a3, long a4) {
+            out.append("Order rejected by risk manager: ").append(a0).append(' ').append(text).append(' ')
+                    .append(SIDES[(int) a1]).append(' ').append(a3).append(" @ ");
+            appendPrice(out, text, a2);
+        }
+    },
+    /** text=symbol, trade id, order id, side ordinal, price ticks, quantity */
+    TRADE_EXECUTED {
+        @Override
+        void format(StringBuilder out, String text, long a0, long a1, long a2, long a3, long a4) {
+            out.append("Executed trade ").append(a0).append(" for order ").append(a1).append(": ").append(text).append(' ')
+                    .append(SIDES[(int) a2]).append(' ').append(a4).append(" @ ");
+            appendPrice(out, text, a3);
+        }
+    },
+    /** text=symbol, side ordinal, price ticks */
+    SIGNAL {
+        @Override
+        void format(StringBuilder out, String text, long a0, long a1, long a2, long a3, long a4) {
+            out.append("MeanReversionStrategy: ").append(SIDES[(int) a0]).append(" order generated for ").append(text).append(" at ");
+            appendPrice(out, text, a1);
+        }
+    },
+    /** text=symbol, order id, current position, limit */
+    POSITION_LIMIT {
+        @Override
+        void format(StringBuilder out, String text, long a0, long a1, long a2, long a3, long a4) {
+            out.append("Risk check failed: Order ").append(a0).append(" would exceed max position for ").append(text)
+                    .append(" (position=").append(a1).append(", limit=").append(a2).append(')');
+        }
+    },
+    /** order id */
+    ORDER_THROTTLED {
+        @Override
+        void format(StringBuilder out, String text, long a0, long a1, long a2, long a3, long a4) {
+            out.append("Order throttled: ").append(a0);
+        }
+    },
+    /** text=histogram name, count, p50, p99, p99.9 and max in ns */
+    ORDER_LATENCY {
+        @Override
+        void format(StringBuilder out, String text, long a0, long a1, long a2, long a3, long a4) {
+            out.append("Latency ").append(text).append(": count=").append(a0)
+                    .append(" p50=").append(a1).append("ns p99=").append(a2)
+                    .append("ns p99.9=").append(a3).append("ns max=").append(a4).append("ns");
+        }
+    },
+    /** text=message, no arguments */
+    MESSAGE {
+        @Override
+        void format(StringBuilder out, String text, long a0, long a1, long a2, long a3, long a4) {
+            out.append(text);
+        }
+    };
+
+    private static final Side[] SIDES = Side.values();
+
+    abstract void format(StringBuilder out, String text, long a0, long a1, long a2, long a3, long a4);
+
+    private static StringBuilder appendPrice(StringBuilder out, String symbol, long priceTicks) {
+        return out.append(Prices.toPrice(symbol, priceTicks));
+    }
+}
@@ -0,0 +1,10 @@
+package com.algotrade.logging;
+
+public enum Level {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    /** Threshold only: disables a component entirely. */
+    OFF
+}
@@ -0,0 +1,116 @@
+package com.algotrade.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-memory latency histogram in nanoseconds, bucketed like HdrHistogram:
+ * values below 128 ns are exact, above that every power of two is split into
+ * 128 linear sub-buckets, so any recorded value is reported within 1/128
+ * (under 0.8%). Values above one hour are clamped. Recording is a couple of
+ * shifts and one atomic increment, never allocates and is safe from any number
+ * of threads. {@link #snapshotAndReset} moves the counts into another histogram
+ * for interval reporting; concurrent records land in one interval or the next.
+ */
+public class LatencyHistogram {
+    public static final long MAX_VALUE = TimeUnit.HOURS.toNanos(1);
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKETS * (indexShift(MAX_VALUE) + 2);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        long max;
+        while (value > (max = maxValue.get()) && !maxValue.compareAndSet(max, value)) {
+            // Retry until this value is stored or a larger one is
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /** Largest recorded value, exact. */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * The value at or below which {@code percentile} percent of recorded values
+     * fall, reported as the top of its bucket and never above {@link #getMax()};
+     * 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueAt(i), getMax());
+            }
+        }
+        return getMax(); // Records raced with this read
+    }
+
+    /** Adds this histogram's counts to {@code target} and clears them here. */
+    public void snapshotAndReset(LatencyHistogram target) {
+        long moved = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.getAndSet(i, 0);
+            if (count != 0) {
+                target.counts.addAndGet(i, count);
+                moved += count;
+            }
+        }
+        totalCount.addAndGet(-moved);
+        target.totalCount.addAndGet(moved);
+        long max = maxValue.getAndSet(0);
+        long targetMax;
+        while (max > (targetMax = target.maxValue.get()) && !target.maxValue.compareAndSet(targetMax, max)) {
+            // Retry until merged
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        maxValue.set(0);
+    }
+
+    /** Power-of-two range above the exact sub-buckets that {@code value} falls in, 0 for the first. */
+    private static int indexShift(long value) {
+        return Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = indexShift(value);
+        // value >>> shift lies in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        return SUB_BUCKETS * (shift + 1) + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long top = SUB_BUCKETS + index % SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -1,40 +1,56 @@
 package com.algotrade.metrics;
 
+import com.algotrade.logging.Component;
+import com.algotrade.logging.EventLogger;
+import com.algotrade.logging.EventType;
+import com.algotrade.logging.Level;
 import com.algotrade.model.Order;
-import com.algotrade.model.Trade;
-
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.Map;
-import java.util.Queue;
 
+/**
+ * Order latencies in nanoseconds, measured from {@link Order#getCreationTimeNanos()}:
+ * creation to risk approval and creation to first fill. Nothing is kept per order,
+ * so orders that never fill cost nothing, and recording never allocates or locks.
+ */
 public class LatencyMetrics {
-    private final Map<String, Queue<Long>> orderToExecutionLatencies;
+    private static final String ORDER_TO_APPROVAL = "order-to-approval";
+    private static final String ORDER_TO_FILL = "order-to-fill";
+
+    private final LatencyHistogram orderToApproval = new LatencyHistogram();
+    private final LatencyHistogram orderToFill = new LatencyHistogram();
+    private final LatencyHistogram interval = new LatencyHistogram(); // Scratch for logInterval
+    private final EventLogger logger = EventLogger.getDefault();
 
-    public LatencyMetrics() {
-        this.orderToExecutionLatencies = new ConcurrentHashMap<>();
+    /** Called once an order has passed pre-trade risk. */
+    public void recordOrderApproval(Order order) {
+        orderToApproval.record(System.nanoTime() - order.getCreationTimeNanos());
     }
 
-    public void recordOrderCreation(Order order) {
-        orderToExecutionLatencies.computeIfAbsent(order.getOrderId(), k -> new ConcurrentLinkedQueue<>()).offer(order.getCreationTimeMillis());
+    /** Called on the first fill of an order only; later fills of the same order are not latency. */
+    public void recordFirstFill(Order order) {
+        orderToFill.record(System.nanoTime() - order.getCreationTimeNanos());
     }
 
-    public void recordTradeExecution(Trade trade) {
-        // Assuming tradeId is related to orderId for latency calculation
-        // In a real system, you might have a more robust way to link orders to trades
-        String orderId = trade.getTradeId(); // This is a simplification; ideally, Trade should reference Order ID
-        Queue<Long> latencies = orderToExecutionLatencies.get(orderId);
-        if (latencies != null && !latencies.isEmpty()) {
-            long creationTime = latencies.poll(); // Get the creation timestamp
-            long latency = trade.getExecutionTimeMillis() - creationTime;
-            // Store or process this latency value (e.g., calculate average, min, max)
-            System.out.println("Latency for order " + orderId + ": " + latency + " ms");
-            // For now, we'll just print it. In a real system, you'd aggregate these.
-        }
+    public LatencyHistogram getOrderToApproval() {
+        return orderToApproval;
+    }
+
+    public LatencyHistogram getOrderToFill() {
+        return orderToFill;
+    }
+
+    /** Logs percentiles of everything recorded since the previous call and starts a new interval. */
+    public synchronized void logInterval() {
+        logInterval(ORDER_TO_APPROVAL, orderToApproval);
+        logInterval(ORDER_TO_FILL, orderToFill);
     }
 
-    // In a more complete system, you would add methods to retrieve aggregated latency statistics.
-    public Map<String, Queue<Long>> getOrderToExecutionLatencies() {
-        return orderToExecutionLatencies;
+    private void logInterval(String name, LatencyHistogram histogram) {
+        histogram.snapshotAndReset(interval);
+        if (interval.getCount() > 0) {
+            logger.log(Component.METRICS, Level.INFO, EventType.ORDER_LATENCY, name, interval.getCount(),
+                    interval.getValueAtPercentile(50), interval.getValueAtPercentile(99),
+                    interval.getValueAtPercentile(99.9), interval.getMax());
+        }
+        interval.reset();
     }
 }
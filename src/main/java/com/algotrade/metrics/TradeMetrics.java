@@ -1,69 +1,111 @@
 package com.algotrade.metrics;
 
 import com.algotrade.model.Order;
+import com.algotrade.model.Prices;
+import com.algotrade.model.SymbolRegistry;
 import com.algotrade.model.Trade;
 import com.algotrade.model.Side;
+import com.algotrade.util.SymbolSlots;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 public class TradeMetrics {
-    private final Map<String, Double> pnl;
-    private final Map<String, AtomicLong> totalOrderedQuantity;
-    private final Map<String, AtomicLong> totalFilledQuantity;
-    private final Map<String, AtomicReference<Double>> lastPrice;
+    // Per-symbol counters by symbol id; PnL is accumulated exactly as ticks * quantity and only converted to a decimal when reported
+    private final SymbolSlots<Slot> slots;
 
     public TradeMetrics() {
-        this.pnl = new ConcurrentHashMap<>();
-        this.totalOrderedQuantity = new ConcurrentHashMap<>();
-        this.totalFilledQuantity = new ConcurrentHashMap<>();
-        this.lastPrice = new ConcurrentHashMap<>();
+        this.slots = new SymbolSlots<>(Slot::new);
     }
 
-    public synchronized void recordOrder(Order order) {
-        totalOrderedQuantity.computeIfAbsent(order.getSymbol(), s -> new AtomicLong(0)).addAndGet(order.getQuantity());
+    public void recordOrder(Order order) {
+        slots.getOrCreate(order.getSymbolId()).totalOrderedQuantity.addAndGet(order.getQuantity());
     }
 
-    public synchronized void recordTrade(Trade trade) {
-        totalFilledQuantity.computeIfAbsent(trade.getSymbol(), s -> new AtomicLong(0)).addAndGet(trade.getQuantity());
-        lastPrice.computeIfAbsent(trade.getSymbol(), s -> new AtomicReference<>(0.0)).set(trade.getPrice());
+    public void recordTrade(Trade trade) {
+        recordTrade(trade.getSymbolId(), trade.getSide(), trade.getPriceTicks(), trade.getQuantity());
+    }
+
+    public void recordTrade(String symbol, Side side, long priceTicks, long quantity) {
+        recordTrade(SymbolRegistry.id(symbol), side, priceTicks, quantity);
+    }
+
+    public void recordTrade(int symbolId, Side side, long priceTicks, long quantity) {
+        Slot slot = slots.getOrCreate(symbolId);
+        slot.totalFilledQuantity.addAndGet(quantity);
+        slot.lastPriceTicks.set(priceTicks);
 
         // Simple PnL calculation (unrealized for simplicity here, realized PnL would be more complex)
-        pnl.compute(trade.getSymbol(), (symbol, currentPnl) -> {
-            if (currentPnl == null) {
-                currentPnl = 0.0;
-            }
-            if (trade.getSide() == Side.BUY) {
-                return currentPnl - (trade.getPrice() * trade.getQuantity());
-            } else { // SELL
-                return currentPnl + (trade.getPrice() * trade.getQuantity());
-            }
-        });
+        long notionalTicks = priceTicks * quantity;
+        if (side == Side.BUY) {
+            slot.pnlTicks.addAndGet(-notionalTicks);
+        } else { // SELL
+            slot.pnlTicks.addAndGet(notionalTicks);
+        }
     }
 
     public double getPnl(String symbol) {
-        return pnl.getOrDefault(symbol, 0.0);
+        int symbolId = SymbolRegistry.find(symbol);
+        return Prices.toPrice(symbol, getPnlTicks(symbolId));
+    }
+
+    /** Cash flow of all fills in ticks times quantity: sells add, buys subtract. */
+    public long getPnlTicks(String symbol) {
+        return getPnlTicks(SymbolRegistry.find(symbol));
+    }
+
+    public long getPnlTicks(int symbolId) {
+        Slot slot = slots.get(symbolId);
+        return slot == null ? 0 : slot.pnlTicks.get();
     }
 
     public double getFillRatio(String symbol) {
-        long ordered = totalOrderedQuantity.getOrDefault(symbol, new AtomicLong(0)).get();
-        long filled = totalFilledQuantity.getOrDefault(symbol, new AtomicLong(0)).get();
+        Slot slot = slots.get(SymbolRegistry.find(symbol));
+        long ordered = slot == null ? 0 : slot.totalOrderedQuantity.get();
+        long filled = slot == null ? 0 : slot.totalFilledQuantity.get();
         return ordered == 0 ? 0.0 : (double) filled / ordered;
     }
 
     public Map<String, Double> getAllPnL() {
+        Map<String, Double> pnl = new ConcurrentHashMap<>();
+        forEachSymbol((symbol, slot) -> {
+            if (slot.totalFilledQuantity.get() > 0) {
+                pnl.put(symbol, getPnl(symbol));
+            }
+        });
         return pnl;
     }
 
     public Map<String, Double> getAllFillRatios() {
         Map<String, Double> fillRatios = new ConcurrentHashMap<>();
-        totalOrderedQuantity.keySet().forEach(symbol -> fillRatios.put(symbol, getFillRatio(symbol)));
+        forEachSymbol((symbol, slot) -> {
+            if (slot.totalOrderedQuantity.get() > 0) {
+                fillRatios.put(symbol, getFillRatio(symbol));
+            }
+        });
         return fillRatios;
     }
 
     public Double getLastPrice(String symbol) {
-        return lastPrice.getOrDefault(symbol, new AtomicReference<>(0.0)).get();
+        Slot slot = slots.get(SymbolRegistry.find(symbol));
+        return slot == null ? 0.0 : Prices.toPrice(symbol, slot.lastPriceTicks.get());
+    }
+
+    private void forEachSymbol(BiConsumer<String, Slot> action) {
+        for (int id = 0; id < slots.length(); id++) {
+            Slot slot = slots.get(id);
+            if (slot != null) {
+                action.accept(SymbolRegistry.symbol(id), slot);
+            }
+        }
+    }
+
+    private static final class Slot {
+        final AtomicLong pnlTicks = new AtomicLong();
+        final AtomicLong totalOrderedQuantity = new AtomicLong();
+        final AtomicLong totalFilledQuantity = new AtomicLong();
+        final AtomicLong lastPriceTicks = new AtomicLong();
     }
 }
@@ -0,0 +1,10 @@
+package com.algotrade.model;
+
+/**
+ * Source of order and trade ids. Implementations must be thread-safe and must
+ * never hand out the same id twice within an engine.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+    long nextId();
+}
@@ -4,31 +4,51 @@ import java.time.LocalDateTime;
 
 public class MarketData {
     private final String symbol;
-    private final double bidPrice;
-    private final double askPrice;
+    private final int symbolId;
+    private final long bidPriceTicks;
+    private final long askPriceTicks;
     private final long bidQuantity;
     private final long askQuantity;
     private final LocalDateTime timestamp;
 
-    public MarketData(String symbol, double bidPrice, double askPrice, long bidQuantity, long askQuantity) {
+    public MarketData(String symbol, long bidPriceTicks, long askPriceTicks, long bidQuantity, long askQuantity) {
         this.symbol = symbol;
-        this.bidPrice = bidPrice;
-        this.askPrice = askPrice;
+        this.symbolId = SymbolRegistry.id(symbol); // Interned once, when the object is created
+        this.bidPriceTicks = bidPriceTicks;
+        this.askPriceTicks = askPriceTicks;
         this.bidQuantity = bidQuantity;
         this.askQuantity = askQuantity;
         this.timestamp = LocalDateTime.now();
     }
 
+    /** Builds market data from decimal prices, rounding them to the symbol's ticks. For feed parsers and simulators. */
+    public static MarketData fromPrices(String symbol, double bidPrice, double askPrice, long bidQuantity, long askQuantity) {
+        return new MarketData(symbol, Prices.toTicks(symbol, bidPrice), Prices.toTicks(symbol, askPrice), bidQuantity, askQuantity);
+    }
+
     public String getSymbol() {
         return symbol;
     }
 
+    /** Dense id of the symbol, see {@link SymbolRegistry}. */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    public long getBidPriceTicks() {
+        return bidPriceTicks;
+    }
+
+    public long getAskPriceTicks() {
+        return askPriceTicks;
+    }
+
     public double getBidPrice() {
-        return bidPrice;
+        return Prices.toPrice(symbolId, bidPriceTicks);
     }
 
     public double getAskPrice() {
-        return askPrice;
+        return Prices.toPrice(symbolId, askPriceTicks);
     }
 
     public long getBidQuantity() {
@@ -47,8 +67,8 @@ public class MarketData {
     public String toString() {
         return "MarketData{" +
                "symbol='" + symbol + "'" +
-               ", bidPrice=" + bidPrice +
-               ", askPrice=" + askPrice +
+               ", bidPrice=" + getBidPrice() +
+               ", askPrice=" + getAskPrice() +
                ", bidQuantity=" + bidQuantity +
                ", askQuantity=" + askQuantity +
                ", timestamp=" + timestamp +
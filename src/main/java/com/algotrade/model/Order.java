@@ -1,30 +1,49 @@
 package com.algotrade.model;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 public class Order {
-    private final String orderId;
+    private static volatile IdGenerator idGenerator = new SequenceIdGenerator();
+
+    private final long orderId;
     private final String symbol;
+    private final int symbolId;
     private final OrderType orderType;
     private final Side side;
-    private final double price;
+    private long priceTicks;
     private long quantity;
+    private long reservedQuantity; // Position held for this order by pre-trade risk
     private final LocalDateTime timestamp;
     private final long creationTimeMillis;
+    private final long creationTimeNanos; // Monotonic, for latency measurement only
+
+    public Order(String symbol, OrderType orderType, Side side, long priceTicks, long quantity) {
+        this(idGenerator.nextId(), symbol, orderType, side, priceTicks, quantity);
+    }
 
-    public Order(String symbol, OrderType orderType, Side side, double price, long quantity) {
-        this.orderId = UUID.randomUUID().toString();
+    public Order(long orderId, String symbol, OrderType orderType, Side side, long priceTicks, long quantity) {
+        this.orderId = orderId;
         this.symbol = symbol;
+        this.symbolId = SymbolRegistry.id(symbol); // Interned once, when the object is created
         this.orderType = orderType;
         this.side = side;
-        this.price = price;
+        this.priceTicks = priceTicks;
         this.quantity = quantity;
         this.timestamp = LocalDateTime.now();
         this.creationTimeMillis = System.currentTimeMillis();
+        this.creationTimeNanos = System.nanoTime();
+    }
+
+    /** Replaces the generator used for orders created without an explicit id. */
+    public static void setIdGenerator(IdGenerator generator) {
+        idGenerator = generator;
     }
 
-    public String getOrderId() {
+    public static IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    public long getOrderId() {
         return orderId;
     }
 
@@ -32,6 +51,11 @@ public class Order {
         return symbol;
     }
 
+    /** Dense id of the symbol, see {@link SymbolRegistry}. */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
     public OrderType getOrderType() {
         return orderType;
     }
@@ -40,8 +64,12 @@ public class Order {
         return side;
     }
 
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
     public double getPrice() {
-        return price;
+        return Prices.toPrice(symbolId, priceTicks);
     }
 
     public long getQuantity() {
@@ -56,6 +84,20 @@ public class Order {
         return creationTimeMillis;
     }
 
+    /** {@link System#nanoTime()} when the order was created; only differences between such values are meaningful. */
+    public long getCreationTimeNanos() {
+        return creationTimeNanos;
+    }
+
+    public long getReservedQuantity() {
+        return reservedQuantity;
+    }
+
+    /** Set by a position store when it reserves position for this order, cleared when it is settled. */
+    public void setReservedQuantity(long reservedQuantity) {
+        this.reservedQuantity = reservedQuantity;
+    }
+
     public void reduceQuantity(long amount) {
         if (amount > this.quantity) {
             throw new IllegalArgumentException("Cannot reduce quantity by more than the current quantity.");
@@ -63,14 +105,22 @@ public class Order {
         this.quantity -= amount;
     }
 
+    public void amend(long newPriceTicks, long newQuantity) {
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Amended quantity must be positive.");
+        }
+        this.priceTicks = newPriceTicks;
+        this.quantity = newQuantity;
+    }
+
     @Override
     public String toString() {
         return "Order{" +
-               "orderId='" + orderId + "'" +
+               "orderId=" + orderId +
                ", symbol='" + symbol + "'" +
                ", orderType=" + orderType +
                ", side=" + side +
-               ", price=" + price +
+               ", price=" + getPrice() +
                ", quantity=" + quantity +
                ", timestamp=" + timestamp +
                "}";
@@ -0,0 +1,50 @@
+package com.algotrade.model;
+
+/**
+ * Fixed-point price conversions. Inside the engine every price is a {@code long}
+ * number of ticks of its symbol's tick size; decimal prices only exist at the
+ * edges (feed parsing, simulators and reporting) and are converted here. Tick
+ * sizes are kept by {@link SymbolRegistry}.
+ */
+public final class Prices {
+    public static final double DEFAULT_TICK_SIZE = 0.01;
+
+    private Prices() {
+    }
+
+    public static void setTickSize(String symbol, double tickSize) {
+        SymbolRegistry.setTickSize(SymbolRegistry.id(symbol), tickSize);
+    }
+
+    public static double getTickSize(String symbol) {
+        int id = SymbolRegistry.find(symbol);
+        return id == SymbolRegistry.UNKNOWN ? DEFAULT_TICK_SIZE : SymbolRegistry.getTickSize(id);
+    }
+
+    /** Rounds a decimal price to the nearest tick of the symbol. */
+    public static long toTicks(String symbol, double price) {
+        return Math.round(price / getTickSize(symbol));
+    }
+
+    public static long toTicks(int symbolId, double price) {
+        return Math.round(price / SymbolRegistry.getTickSize(symbolId));
+    }
+
+    /** Converts ticks back to a decimal price for display and reporting. */
+    public static double toPrice(String symbol, long ticks) {
+        return toPrice(ticks, getTickSize(symbol));
+    }
+
+    public static double toPrice(int symbolId, long ticks) {
+        return toPrice(ticks, SymbolRegistry.getTickSize(symbolId));
+    }
+
+    private static double toPrice(long ticks, double tickSize) {
+        double ticksPerUnit = Math.rint(1.0 / tickSize);
+        // Dividing by an integral ticks-per-unit avoids artefacts like 100.00000000000001
+        if (Math.abs(ticksPerUnit * tickSize - 1.0) < 1e-12) {
+            return ticks / ticksPerUnit;
+        }
+        return ticks * tickSize;
+    }
+}
@@ -0,0 +1,58 @@
+package com.algotrade.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonically increasing {@code long} ids. An optional node (or shard) id is
+ * stored in the top {@value #NODE_BITS} bits so that generators running on
+ * different nodes or shards never collide, with 2^48 ids available per node.
+ */
+public class SequenceIdGenerator implements IdGenerator {
+    public static final int NODE_BITS = 15;
+    private static final int SEQUENCE_BITS = 63 - NODE_BITS;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final long prefix;
+    private final AtomicLong sequence;
+
+    public SequenceIdGenerator() {
+        this(0);
+    }
+
+    public SequenceIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId >= (1 << NODE_BITS)) {
+            throw new IllegalArgumentException("Node id out of range: " + nodeId);
+        }
+        this.prefix = (long) nodeId << SEQUENCE_BITS;
+        this.sequence = new AtomicLong(0);
+    }
+
+    @Override
+    public long nextId() {
+        long next = sequence.incrementAndGet();
+        if (next > MAX_SEQUENCE) {
+            throw new IllegalStateException("Id sequence exhausted for prefix " + (prefix >>> SEQUENCE_BITS));
+        }
+        return prefix | next;
+    }
+
+    /** The most recently issued id, or the bare prefix if none was issued yet. */
+    public long lastId() {
+        return prefix | sequence.get();
+    }
+
+    /** Ensures ids issued from now on are greater than {@code id} if it belongs to this node; used after recovery. */
+    public void advanceTo(long id) {
+        if (nodeIdOf(id) == (int) (prefix >>> SEQUENCE_BITS)) {
+            sequence.accumulateAndGet(sequenceOf(id), Math::max);
+        }
+    }
+
+    public static int nodeIdOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS);
+    }
+
+    public static long sequenceOf(long id) {
+        return id & MAX_SEQUENCE;
+    }
+}
@@ -0,0 +1,84 @@
+package com.algotrade.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns symbols to dense {@code int} ids, assigned once when a symbol is first
+ * seen (feed decode, order creation or configuration) and never reused. Models
+ * carry the id, so per-symbol state elsewhere can live in arrays indexed by it
+ * instead of maps keyed by string. Also holds each symbol's tick size.
+ */
+public final class SymbolRegistry {
+    /** Returned by {@link #find} for a symbol that was never registered. */
+    public static final int UNKNOWN = -1;
+
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // Grown and written under the class lock; reassigning the volatile field publishes element writes
+    private static volatile String[] symbols = new String[64];
+    private static volatile double[] tickSizes = new double[64];
+    private static volatile int count;
+
+    private SymbolRegistry() {
+    }
+
+    /** The symbol's id, registering it with the default tick size if it is new. */
+    public static int id(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : register(symbol);
+    }
+
+    /** The symbol's id, or {@link #UNKNOWN} without registering it. */
+    public static int find(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : UNKNOWN;
+    }
+
+    public static String symbol(int id) {
+        if (id < 0 || id >= count) {
+            throw new IllegalArgumentException("Unknown symbol id: " + id);
+        }
+        return symbols[id];
+    }
+
+    /** Number of registered symbols; ids run from 0 to {@code size() - 1}. */
+    public static int size() {
+        return count;
+    }
+
+    public static double getTickSize(int id) {
+        return tickSizes[id];
+    }
+
+    public static synchronized void setTickSize(int id, double tickSize) {
+        if (!(tickSize > 0)) {
+            throw new IllegalArgumentException("Tick size must be positive: " + tickSize);
+        }
+        symbol(id); // Validates the id
+        double[] sizes = tickSizes;
+        sizes[id] = tickSize;
+        tickSizes = sizes;
+    }
+
+    private static synchronized int register(String symbol) {
+        Integer existing = ids.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        int id = count;
+        String[] names = symbols;
+        double[] sizes = tickSizes;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            sizes = Arrays.copyOf(sizes, id * 2);
+        }
+        names[id] = symbol;
+        sizes[id] = Prices.DEFAULT_TICK_SIZE;
+        symbols = names;
+        tickSizes = sizes;
+        count = id + 1;
+        ids.put(symbol, id); // Last: readers that find the id see its arrays filled in
+        return id;
+    }
+}
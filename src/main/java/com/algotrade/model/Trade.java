@@ -1,36 +1,53 @@
 package com.algotrade.model;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 public class Trade {
-    private final String tradeId;
+    private final long tradeId;
+    private final long orderId;
     private final String symbol;
-    private final double price;
+    private final int symbolId;
+    private final long priceTicks;
     private final long quantity;
     private final Side side;
-    private final LocalDateTime timestamp;
     private final long executionTimeMillis;
 
-    public Trade(String tradeId, String symbol, double price, long quantity, Side side) {
+    public Trade(long tradeId, long orderId, String symbol, long priceTicks, long quantity, Side side) {
         this.tradeId = tradeId;
+        this.orderId = orderId;
         this.symbol = symbol;
-        this.price = price;
+        this.symbolId = SymbolRegistry.id(symbol); // Interned once, when the object is created
+        this.priceTicks = priceTicks;
         this.quantity = quantity;
         this.side = side;
-        this.timestamp = LocalDateTime.now();
         this.executionTimeMillis = System.currentTimeMillis();
     }
 
-    public String getTradeId() {
+    public long getTradeId() {
         return tradeId;
     }
 
+    public long getOrderId() {
+        return orderId;
+    }
+
     public String getSymbol() {
         return symbol;
     }
 
+    /** Dense id of the symbol, see {@link SymbolRegistry}. */
+    public int getSymbolId() {
+        return symbolId;
+    }
+
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
     public double getPrice() {
-        return price;
+        return Prices.toPrice(symbolId, priceTicks);
     }
 
     public long getQuantity() {
@@ -41,8 +58,9 @@ public class Trade {
         return side;
     }
 
+    // Derived on demand so that creating a Trade does not pay for LocalDateTime.now()
     public LocalDateTime getTimestamp() {
-        return timestamp;
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(executionTimeMillis), ZoneId.systemDefault());
     }
 
     public long getExecutionTimeMillis() {
@@ -52,12 +70,13 @@ public class Trade {
     @Override
     public String toString() {
         return "Trade{" +
-               "tradeId='" + tradeId + "'" +
+               "tradeId=" + tradeId +
+               ", orderId=" + orderId +
                ", symbol='" + symbol + "'" +
-               ", price=" + price +
+               ", price=" + getPrice() +
                ", quantity=" + quantity +
                ", side=" + side +
-               ", timestamp=" + timestamp +
+               ", timestamp=" + getTimestamp() +
                "}";
     }
 }
@@ -0,0 +1,43 @@
+package com.algotrade.pipeline;
+
+import com.algotrade.model.Order;
+import com.algotrade.model.Trade;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapts a blocking {@link OrderExecutor} (e.g. {@link ExchangeOrderExecutor} in
+ * front of a slow venue) to the async contract by running it on {@code executor}.
+ * The caller gets a future back at once and can keep other orders in flight.
+ */
+public class AsyncOrderExecutor implements OrderExecutor {
+    private final OrderExecutor delegateExecutor;
+    private final Executor executor;
+
+    public AsyncOrderExecutor(OrderExecutor delegateExecutor, Executor executor) {
+        this.delegateExecutor = delegateExecutor;
+        this.executor = executor;
+    }
+
+    @Override
+    public List<Trade> executeOrder(Order order) {
+        return delegateExecutor.executeOrder(order);
+    }
+
+    @Override
+    public List<Trade> executeOrders(List<Order> orders) {
+        return delegateExecutor.executeOrders(orders);
+    }
+
+    @Override
+    public CompletableFuture<List<Trade>> executeOrderAsync(Order order) {
+        return CompletableFuture.supplyAsync(() -> delegateExecutor.executeOrder(order), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Trade>> executeOrdersAsync(List<Order> orders) {
+        return CompletableFuture.supplyAsync(() -> delegateExecutor.executeOrders(orders), executor);
+    }
+}
@@ -0,0 +1,31 @@
+package com.algotrade.pipeline;
+
+import com.algotrade.model.Order;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapts a blocking {@link RiskManager} (e.g. {@code MaxPositionRiskManager} or a
+ * check that calls out to a remote limit service) to the async contract by
+ * running it on {@code executor}.
+ */
+public class AsyncRiskManager implements RiskManager {
+    private final RiskManager delegateRiskManager;
+    private final Executor executor;
+
+    public AsyncRiskManager(RiskManager delegateRiskManager, Executor executor) {
+        this.delegateRiskManager = delegateRiskManager;
+        this.executor = executor;
+    }
+
+    @Override
+    public boolean checkOrder(Order order) {
+        return delegateRiskManager.checkOrder(order);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> checkOrderAsync(Order order) {
+        return CompletableFuture.supplyAsync(() -> delegateRiskManager.checkOrder(order), executor);
+    }
+}
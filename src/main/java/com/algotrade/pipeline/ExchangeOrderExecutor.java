@@ -1,12 +1,15 @@
 package com.algotrade.pipeline;
 
 import com.algotrade.exchange.Exchange;
+import com.algotrade.exchange.FillBuffer;
+import com.algotrade.exchange.TradeListener;
 import com.algotrade.metrics.LatencyMetrics;
 import com.algotrade.metrics.TradeMetrics;
 import com.algotrade.model.Order;
 import com.algotrade.model.Trade;
 import com.algotrade.risk.PositionManager;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ExchangeOrderExecutor implements OrderExecutor {
@@ -14,25 +17,96 @@ public class ExchangeOrderExecutor implements OrderExecutor {
     private final PositionManager positionManager;
     private final TradeMetrics tradeMetrics;
     private final LatencyMetrics latencyMetrics;
+    // One forwarder per executing thread, so the listener path allocates nothing per order
+    private final ThreadLocal<FillForwarder> forwarders = ThreadLocal.withInitial(FillForwarder::new);
 
     public ExchangeOrderExecutor(Exchange exchange, PositionManager positionManager, TradeMetrics tradeMetrics, LatencyMetrics latencyMetrics) {
         this.exchange = exchange;
         this.positionManager = positionManager;
         this.tradeMetrics = tradeMetrics;
         this.latencyMetrics = latencyMetrics;
+        exchange.addOrderEventListener(positionManager); // Commits fills of resting orders too
     }
 
     @Override
     public List<Trade> executeOrder(Order order) {
+        List<Trade> trades = new ArrayList<>();
+        executeOrder(order, (tradeId, taker, maker, priceTicks, quantity) ->
+                trades.add(new Trade(tradeId, taker.getOrderId(), taker.getSymbol(), priceTicks, quantity, taker.getSide())));
+        return trades;
+    }
+
+    /**
+     * Executes an order through the exchange's listener API: metrics are updated
+     * from primitive fill data and fills are forwarded to {@code listener}, so no
+     * Trade objects, result lists or lambdas are created per order or match.
+     *
+     * @return true if the order received at least one fill
+     */
+    @Override
+    public boolean executeOrder(Order order, TradeListener listener) {
         tradeMetrics.recordOrder(order);
-        List<Trade> trades = exchange.placeOrder(order);
-        if (!trades.isEmpty()) {
-            positionManager.updatePosition(order);
-            trades.forEach(trade -> {
-                tradeMetrics.recordTrade(trade);
-                latencyMetrics.recordTradeExecution(trade);
-            });
+        positionManager.track(order);
+        long quantityBefore = order.getQuantity();
+        FillForwarder forwarder = forwarders.get();
+        TradeListener outerListener = forwarder.listener; // Saved in case a listener executes another order
+        long outerQuantityBefore = forwarder.quantityBefore;
+        forwarder.listener = listener;
+        forwarder.quantityBefore = quantityBefore;
+        try {
+            exchange.placeOrder(order, forwarder);
+        } catch (RuntimeException e) {
+            positionManager.release(order); // Rejected by the exchange
+            throw e;
+        } finally {
+            forwarder.listener = outerListener;
+            forwarder.quantityBefore = outerQuantityBefore;
+        }
+        return order.getQuantity() < quantityBefore;
+    }
+
+    /** Sends the whole batch to the exchange in one call, so each book is taken once. */
+    @Override
+    public List<Trade> executeOrders(List<Order> orders) {
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            tradeMetrics.recordOrder(order);
+            positionManager.track(order);
+        }
+        FillBuffer fills;
+        try {
+            fills = exchange.placeOrders(orders);
+        } catch (RuntimeException e) {
+            // An unsupported symbol rejects the batch before anything is matched
+            for (int i = 0; i < orders.size(); i++) {
+                positionManager.release(orders.get(i));
+            }
+            throw e;
+        }
+        for (int i = 0; i < fills.size(); i++) {
+            Order taker = fills.getTakerOrder(i);
+            // A taker's fills are contiguous, so its first one follows another taker's
+            recordFill(taker, fills.getPriceTicks(i), fills.getQuantity(i), i == 0 || fills.getTakerOrder(i - 1) != taker);
+        }
+        return fills.toTrades();
+    }
+
+    private void recordFill(Order taker, long priceTicks, long quantity, boolean firstFill) {
+        tradeMetrics.recordTrade(taker.getSymbolId(), taker.getSide(), priceTicks, quantity);
+        if (firstFill) {
+            latencyMetrics.recordFirstFill(taker);
+        }
+    }
+
+    /** Records each fill, then hands it to the caller's listener. */
+    private final class FillForwarder implements TradeListener {
+        TradeListener listener;
+        long quantityBefore;
+
+        @Override
+        public void onTrade(long tradeId, Order takerOrder, Order makerOrder, long priceTicks, long quantity) {
+            recordFill(takerOrder, priceTicks, quantity, takerOrder.getQuantity() + quantity == quantityBefore);
+            listener.onTrade(tradeId, takerOrder, makerOrder, priceTicks, quantity);
         }
-        return trades;
     }
 }
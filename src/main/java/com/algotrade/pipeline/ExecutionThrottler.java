@@ -1,42 +1,468 @@
 package com.algotrade.pipeline;
 
+import com.algotrade.exchange.TradeListener;
+import com.algotrade.logging.Component;
+import com.algotrade.logging.EventLogger;
+import com.algotrade.logging.EventType;
+import com.algotrade.logging.Level;
 import com.algotrade.model.Order;
+import com.algotrade.model.Side;
 import com.algotrade.model.Trade;
+import com.algotrade.util.SymbolSlots;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
 
+/**
+ * Rate limits orders with {@link TokenBucket}s. An order is sent only if every
+ * bucket has a token: the throttler's own buckets, which may be shared with
+ * other throttlers (e.g. a venue-wide bucket shared by all lanes of a
+ * {@link PartitionedTradingPipeline} plus a bucket per strategy), and optionally
+ * a bucket per symbol. Throttled orders are dropped and counted.
+ * <p>
+ * In queued mode a throttled order instead waits, up to a deadline, in a bounded
+ * queue drained by one scheduler thread as tokens refill. While an order waits,
+ * later orders for its symbol join the queue too and are netted against it: a
+ * buy and a sell cancel out by the smaller quantity, and orders of the same
+ * side, type and price merge into one. {@link #executeOrderAsync} completes when
+ * a queued order is sent, with an empty list if it was netted away or dropped;
+ * {@link #executeOrder} returns nothing for an order it queued. A symbol counts
+ * as waiting from the moment an order is queued until the drained order has been
+ * handed to the delegate, so later orders cannot overtake it; symbols with
+ * nothing waiting are checked without taking the queue's lock.
+ */
 public class ExecutionThrottler implements OrderExecutor {
+    private static final long MIN_DRAIN_DELAY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
     private final OrderExecutor delegateExecutor;
-    private final Semaphore semaphore;
-    private final long rateLimitIntervalMillis;
+    private final TokenBucket[] buckets;
+    private final int symbolPermits;
+    private final long symbolIntervalMillis;
+    private final SymbolSlots<TokenBucket> symbolBuckets;
+    private final LongAdder throttledCount = new LongAdder();
+    private final EventLogger logger = EventLogger.getDefault();
+    private volatile ObjLongConsumer<Order> dropListener = (order, quantity) -> { };
+
+    // Queued mode only; the queue is guarded by its own monitor
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final List<Pending> queue;
+    private final SymbolSlots<SymbolState> symbolStates;
+    private final ScheduledExecutorService scheduler;
+    private boolean drainScheduled;
+    private long drainPass;
+    private long nettedCount;
+    private long mergedCount;
 
     public ExecutionThrottler(OrderExecutor delegateExecutor, int permits, long rateLimitIntervalMillis) {
-        this.delegateExecutor = delegateExecutor;
-        this.semaphore = new Semaphore(permits);
-        this.rateLimitIntervalMillis = rateLimitIntervalMillis;
+        this(delegateExecutor, List.of(new TokenBucket(permits, rateLimitIntervalMillis)), 0, 0);
+    }
 
-        // A simple background thread to release permits periodically
-        new Thread(() -> {
-            try {
-                while (!Thread.currentThread().isInterrupted()) {
-                    Thread.sleep(rateLimitIntervalMillis);
-                    semaphore.release(permits - semaphore.availablePermits()); // Release all permits
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
+    /** Adds a limit of {@code symbolPermits} per {@code symbolIntervalMillis} for each symbol. */
+    public ExecutionThrottler(OrderExecutor delegateExecutor, int permits, long rateLimitIntervalMillis,
+                              int symbolPermits, long symbolIntervalMillis) {
+        this(delegateExecutor, List.of(new TokenBucket(permits, rateLimitIntervalMillis)), symbolPermits, symbolIntervalMillis);
+    }
+
+    /**
+     * @param buckets every order takes a token from each; they may be shared with other throttlers
+     * @param symbolPermits per-symbol limit, or 0 for none
+     */
+    public ExecutionThrottler(OrderExecutor delegateExecutor, List<TokenBucket> buckets,
+                              int symbolPermits, long symbolIntervalMillis) {
+        this(delegateExecutor, buckets, symbolPermits, symbolIntervalMillis, 0, 0);
+    }
+
+    /**
+     * Queued mode when {@code queueCapacity} is positive: throttled orders wait up
+     * to {@code maxWaitMillis} for a token. Call {@link #shutdown()} when done.
+     */
+    public ExecutionThrottler(OrderExecutor delegateExecutor, List<TokenBucket> buckets,
+                              int symbolPermits, long symbolIntervalMillis, int queueCapacity, long maxWaitMillis) {
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity must not be negative: " + queueCapacity);
+        }
+        if (queueCapacity > 0 && maxWaitMillis <= 0) {
+            throw new IllegalArgumentException("Maximum wait must be positive: " + maxWaitMillis);
+        }
+        if (symbolPermits < 0) {
+            throw new IllegalArgumentException("Symbol permits must not be negative: " + symbolPermits);
+        }
+        if (symbolPermits > 0 && symbolIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + symbolIntervalMillis);
+        }
+        this.delegateExecutor = delegateExecutor;
+        this.buckets = buckets.toArray(new TokenBucket[0]);
+        this.symbolPermits = symbolPermits;
+        this.symbolIntervalMillis = symbolIntervalMillis;
+        this.symbolBuckets = new SymbolSlots<>(() -> new TokenBucket(symbolPermits, symbolIntervalMillis));
+        this.queueCapacity = queueCapacity;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.queue = queueCapacity > 0 ? new ArrayList<>(queueCapacity) : null;
+        this.symbolStates = queueCapacity > 0 ? new SymbolSlots<>(SymbolState::new) : null;
+        this.scheduler = queueCapacity > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "throttler-queue");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
     }
 
     @Override
     public List<Trade> executeOrder(Order order) {
-        if (semaphore.tryAcquire()) {
+        if (isWaiting(order) && enqueueIfWaiting(order, new CompletableFuture<>())) {
+            return List.of(); // Sent later, or netted away
+        }
+        if (tryAcquire(order)) {
             return delegateExecutor.executeOrder(order);
+        } else if (queue != null) {
+            enqueue(order, new CompletableFuture<>());
+            return List.of();
         } else {
-            System.out.println("Order throttled: " + order.getOrderId());
+            throttled(order);
             return List.of(); // Return empty list for throttled orders
         }
     }
+
+    @Override
+    public boolean executeOrder(Order order, TradeListener listener) {
+        if (isWaiting(order) && enqueueIfWaiting(order, new CompletableFuture<>())) {
+            return false; // Sent later, or netted away
+        }
+        if (tryAcquire(order)) {
+            return delegateExecutor.executeOrder(order, listener);
+        } else if (queue != null) {
+            enqueue(order, new CompletableFuture<>());
+        } else {
+            throttled(order);
+        }
+        return false;
+    }
+
+    /** Takes the tokens without blocking and hands the order to the delegate's async path. */
+    @Override
+    public CompletableFuture<List<Trade>> executeOrderAsync(Order order) {
+        if (isWaiting(order)) {
+            CompletableFuture<List<Trade>> result = new CompletableFuture<>();
+            if (enqueueIfWaiting(order, result)) {
+                return result;
+            }
+        }
+        if (tryAcquire(order)) {
+            return delegateExecutor.executeOrderAsync(order);
+        }
+        if (queue != null) {
+            CompletableFuture<List<Trade>> result = new CompletableFuture<>();
+            enqueue(order, result);
+            return result;
+        }
+        throttled(order);
+        return CompletableFuture.completedFuture(List.of());
+    }
+
+    @Override
+    public CompletableFuture<List<Trade>> executeOrdersAsync(List<Order> orders) {
+        List<CompletableFuture<List<Trade>>> results = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            results.add(executeOrderAsync(order));
+        }
+        return CompletableFuture.allOf(results.toArray(CompletableFuture<?>[]::new)).thenApply(ignored -> {
+            List<Trade> trades = new ArrayList<>();
+            results.forEach(result -> trades.addAll(result.join()));
+            return trades;
+        });
+    }
+
+    /**
+     * Called with every order, or part of an order, that will not be sent and the
+     * quantity concerned: throttled, expired, netted away in full or in part, or
+     * abandoned at shutdown. Pass {@code positionManager::release} to free the
+     * position reserved for that quantity by pre-trade risk.
+     */
+    public void setDropListener(ObjLongConsumer<Order> dropListener) {
+        this.dropListener = dropListener;
+    }
+
+    /** Orders dropped for lack of a token, including queued orders that missed their deadline. */
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+
+    /** Queued orders cancelled out, fully or in part, by an opposite order for the same symbol. */
+    public long getNettedCount() {
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return nettedCount;
+        }
+    }
+
+    /** Orders folded into a waiting order of the same symbol, side, type and price. */
+    public long getMergedCount() {
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return mergedCount;
+        }
+    }
+
+    public int getQueuedCount() {
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /** Stops the queue's scheduler; orders still waiting complete empty. No-op unless queued. */
+    public void shutdown() {
+        if (queue == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        List<Pending> abandoned;
+        synchronized (queue) {
+            abandoned = new ArrayList<>(queue);
+            queue.clear();
+            abandoned.forEach(pending -> pending.state.queued--);
+        }
+        abandoned.forEach(pending -> {
+            pending.state.busy.decrementAndGet();
+            dropListener.accept(pending.order, pending.quantity);
+            pending.complete(List.of());
+        });
+    }
+
+    /** Lock-free: whether the order's symbol has orders queued or being sent from the queue. */
+    private boolean isWaiting(Order order) {
+        if (queue == null) {
+            return false;
+        }
+        SymbolState state = symbolStates.get(order.getSymbolId());
+        return state != null && state.busy.get() > 0;
+    }
+
+    /** Queues the order if its symbol still has orders waiting, so it neither overtakes nor misses them. */
+    private boolean enqueueIfWaiting(Order order, CompletableFuture<List<Trade>> result) {
+        synchronized (queue) {
+            if (symbolStates.getOrCreate(order.getSymbolId()).busy.get() == 0) {
+                return false;
+            }
+            enqueueLocked(order, result);
+            return true;
+        }
+    }
+
+    private void enqueue(Order order, CompletableFuture<List<Trade>> result) {
+        synchronized (queue) {
+            enqueueLocked(order, result);
+        }
+    }
+
+    private void enqueueLocked(Order order, CompletableFuture<List<Trade>> result) {
+        long quantity = order.getQuantity();
+        // Net against waiting orders on the other side, oldest first
+        for (int i = 0; i < queue.size() && quantity > 0; i++) {
+            Pending pending = queue.get(i);
+            if (pending.symbolId == order.getSymbolId() && pending.side != order.getSide()) {
+                long netted = Math.min(quantity, pending.quantity);
+                quantity -= netted;
+                pending.quantity -= netted;
+                nettedCount++;
+                dropListener.accept(pending.order, netted); // Neither side sends the netted quantity
+                dropListener.accept(order, netted);
+                if (pending.quantity == 0) {
+                    queue.remove(i--);
+                    pending.dequeued();
+                    pending.state.busy.decrementAndGet();
+                    pending.complete(List.of());
+                }
+            }
+        }
+        if (quantity == 0) {
+            result.complete(List.of());
+            return;
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            Pending pending = queue.get(i);
+            if (pending.symbolId == order.getSymbolId() && pending.side == order.getSide()
+                    && pending.order.getOrderType() == order.getOrderType()
+                    && pending.order.getPriceTicks() == order.getPriceTicks()) {
+                pending.quantity += quantity; // Keeps the earlier deadline
+                // What is left of the reservation after netting covers exactly the quantity that joins
+                pending.order.setReservedQuantity(pending.order.getReservedQuantity() + order.getReservedQuantity());
+                order.setReservedQuantity(0); // The merged order settles for both
+                pending.results.add(result);
+                mergedCount++;
+                return;
+            }
+        }
+        SymbolState state = symbolStates.getOrCreate(order.getSymbolId());
+        if (queue.size() >= queueCapacity || waitExceedsDeadline(order, state)) {
+            throttled(order, quantity);
+            result.complete(List.of());
+            return;
+        }
+        state.queued++;
+        state.busy.incrementAndGet();
+        queue.add(new Pending(order, state, quantity, System.nanoTime() + maxWaitNanos, result));
+        scheduleDrainLocked(0);
+    }
+
+    /** Whether the order would miss its deadline behind everything already queued for the same buckets. */
+    private boolean waitExceedsDeadline(Order order, SymbolState state) {
+        for (TokenBucket bucket : buckets) {
+            if (bucket.nanosUntilAvailable(queue.size()) > maxWaitNanos) {
+                return true;
+            }
+        }
+        return symbolPermits > 0
+                && symbolBuckets.getOrCreate(order.getSymbolId()).nanosUntilAvailable(state.queued) > maxWaitNanos;
+    }
+
+    private void scheduleDrainLocked(long delayNanos) {
+        if (!drainScheduled && !scheduler.isShutdown()) {
+            drainScheduled = true;
+            scheduler.schedule(this::drain, Math.max(delayNanos, MIN_DRAIN_DELAY_NANOS), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** Sends every waiting order that can take its tokens, drops expired ones and reschedules for the rest. */
+    private void drain() {
+        List<Pending> ready = new ArrayList<>();
+        synchronized (queue) {
+            drainScheduled = false;
+            long pass = ++drainPass;
+            long now = System.nanoTime();
+            long nextDelay = Long.MAX_VALUE;
+            for (int i = 0; i < queue.size(); i++) {
+                Pending pending = queue.get(i);
+                if (now - pending.deadlineNanos > 0) {
+                    queue.remove(i--);
+                    pending.dequeued();
+                    pending.state.busy.decrementAndGet();
+                    throttled(pending.order, pending.quantity);
+                    pending.complete(List.of());
+                } else if (pending.state.blockedPass != pass && tryAcquire(pending.order)) {
+                    queue.remove(i--);
+                    pending.dequeued(); // Still busy until sent below
+                    ready.add(pending);
+                } else {
+                    pending.state.blockedPass = pass; // Later orders of the symbol wait behind this one
+                    nextDelay = Math.min(nextDelay, Math.min(waitNanos(pending.order), pending.deadlineNanos - now));
+                }
+            }
+            if (!queue.isEmpty()) {
+                scheduleDrainLocked(nextDelay);
+            }
+        }
+        for (Pending pending : ready) {
+            Order order = pending.toOrder();
+            CompletableFuture<List<Trade>> sent;
+            try {
+                sent = delegateExecutor.executeOrderAsync(order);
+            } finally {
+                pending.state.busy.decrementAndGet(); // Handed over: the symbol's next orders may go direct
+            }
+            sent.whenComplete((trades, e) -> {
+                if (e != null) {
+                    pending.results.forEach(result -> result.completeExceptionally(e));
+                } else {
+                    pending.complete(trades);
+                }
+            });
+        }
+    }
+
+    private long waitNanos(Order order) {
+        long wait = symbolPermits > 0 ? symbolBuckets.getOrCreate(order.getSymbolId()).nanosUntilAvailable() : 0;
+        for (TokenBucket bucket : buckets) {
+            wait = Math.max(wait, bucket.nanosUntilAvailable());
+        }
+        return wait;
+    }
+
+    /** Takes a token from every applicable bucket, or from none. */
+    private boolean tryAcquire(Order order) {
+        TokenBucket symbolBucket = symbolPermits > 0 ? symbolBuckets.getOrCreate(order.getSymbolId()) : null;
+        if (symbolBucket != null && !symbolBucket.tryAcquire()) {
+            return false;
+        }
+        for (int i = 0; i < buckets.length; i++) {
+            if (!buckets[i].tryAcquire()) {
+                for (int j = 0; j < i; j++) {
+                    buckets[j].release();
+                }
+                if (symbolBucket != null) {
+                    symbolBucket.release();
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void throttled(Order order) {
+        throttled(order, order.getQuantity());
+    }
+
+    private void throttled(Order order, long quantity) {
+        throttledCount.increment();
+        dropListener.accept(order, quantity);
+        logger.log(Component.EXECUTION, Level.WARN, EventType.ORDER_THROTTLED, null, order.getOrderId());
+    }
+
+    /** Per-symbol queue bookkeeping. */
+    private static final class SymbolState {
+        final AtomicInteger busy = new AtomicInteger(); // Queued plus drained but not yet sent
+        int queued; // Guarded by the queue
+        long blockedPass; // Guarded by the queue: last drain pass in which an order of the symbol could not go
+    }
+
+    /** A waiting order with its netted quantity and everyone waiting on it. */
+    private static final class Pending {
+        final Order order;
+        final SymbolState state;
+        final int symbolId;
+        final Side side;
+        final long deadlineNanos;
+        final List<CompletableFuture<List<Trade>>> results = new ArrayList<>(1);
+        long quantity;
+
+        Pending(Order order, SymbolState state, long quantity, long deadlineNanos, CompletableFuture<List<Trade>> result) {
+            this.order = order;
+            this.state = state;
+            this.symbolId = order.getSymbolId();
+            this.side = order.getSide();
+            this.quantity = quantity;
+            this.deadlineNanos = deadlineNanos;
+            results.add(result);
+        }
+
+        /** The original order resized to the netted quantity, so it keeps its id and creation time. */
+        Order toOrder() {
+            if (quantity != order.getQuantity()) {
+                order.amend(order.getPriceTicks(), quantity);
+            }
+            return order;
+        }
+
+        /** Called with the queue held when the order leaves it. */
+        void dequeued() {
+            state.queued--;
+        }
+
+        void complete(List<Trade> trades) {
+            results.forEach(result -> result.complete(trades));
+        }
+    }
 }
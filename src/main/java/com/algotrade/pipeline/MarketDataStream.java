@@ -1,24 +1,130 @@
 package com.algotrade.pipeline;
 
+import com.algotrade.logging.Component;
+import com.algotrade.logging.EventLogger;
+import com.algotrade.logging.EventType;
+import com.algotrade.logging.Level;
 import com.algotrade.model.MarketData;
+import com.algotrade.util.ThreadMode;
 
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 public class MarketDataStream {
+    /** What happens to ticks published faster than the handler consumes them. */
+    public enum Backpressure {
+        /** Every tick is queued and handled; the backlog is unbounded. */
+        UNBOUNDED,
+        /** Only the latest unhandled tick per symbol is kept; replaced ticks are counted as conflated. */
+        CONFLATE,
+        /** At most {@code capacity} ticks wait; the oldest is dropped to make room and counted. */
+        DROP_OLDEST
+    }
+
     private final ExecutorService executorService;
     private final Consumer<MarketData> marketDataHandler;
+    private final Backpressure backpressure;
+    private final Map<String, MarketData> latestBySymbol; // CONFLATE
+    private final Queue<String> pendingSymbols; // CONFLATE: symbols with a tick in latestBySymbol, in arrival order
+    private final Queue<MarketData> pendingTicks; // DROP_OLDEST
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicLong conflatedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final EventLogger logger = EventLogger.getDefault();
 
     public MarketDataStream(Consumer<MarketData> marketDataHandler) {
-        this.executorService = Executors.newSingleThreadExecutor();
+        this(marketDataHandler, ThreadMode.PLATFORM);
+    }
+
+    public MarketDataStream(Consumer<MarketData> marketDataHandler, ThreadMode threadMode) {
+        this(marketDataHandler, threadMode, Backpressure.UNBOUNDED, 0);
+    }
+
+    /**
+     * @param capacity maximum number of waiting ticks for {@link Backpressure#DROP_OLDEST}, ignored otherwise
+     */
+    public MarketDataStream(Consumer<MarketData> marketDataHandler, ThreadMode threadMode, Backpressure backpressure, int capacity) {
+        if (backpressure == Backpressure.DROP_OLDEST && capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.executorService = threadMode.newSingleThreadExecutor("market-data-stream");
         this.marketDataHandler = marketDataHandler;
+        this.backpressure = backpressure;
+        this.latestBySymbol = backpressure == Backpressure.CONFLATE ? new ConcurrentHashMap<>() : null;
+        this.pendingSymbols = backpressure == Backpressure.CONFLATE ? new ConcurrentLinkedQueue<>() : null;
+        this.pendingTicks = backpressure == Backpressure.DROP_OLDEST ? new ArrayBlockingQueue<>(capacity) : null;
     }
 
     public void publishMarketData(MarketData marketData) {
-        executorService.submit(() -> {
-            marketDataHandler.accept(marketData);
-        });
+        switch (backpressure) {
+            case CONFLATE:
+                if (latestBySymbol.put(marketData.getSymbol(), marketData) != null) {
+                    conflatedCount.incrementAndGet(); // The older tick was never handled
+                    return;
+                }
+                pendingSymbols.offer(marketData.getSymbol());
+                break;
+            case DROP_OLDEST:
+                while (!pendingTicks.offer(marketData)) {
+                    if (pendingTicks.poll() != null) {
+                        droppedCount.incrementAndGet();
+                    }
+                }
+                break;
+            default:
+                executorService.submit(() -> {
+                    marketDataHandler.accept(marketData);
+                });
+                return;
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            executorService.submit(this::drain);
+        }
+    }
+
+    /** Handles waiting ticks until none are left; at most one drain is scheduled at a time. */
+    private void drain() {
+        do {
+            MarketData marketData;
+            while ((marketData = nextPending()) != null) {
+                try {
+                    marketDataHandler.accept(marketData);
+                } catch (RuntimeException e) {
+                    logger.log(Component.FEED, Level.ERROR, EventType.MESSAGE, "Error handling market data: " + e);
+                }
+            }
+            drainScheduled.set(false);
+            // A tick published after the last poll but before the flag was cleared would otherwise wait
+        } while (hasPending() && drainScheduled.compareAndSet(false, true));
+    }
+
+    private MarketData nextPending() {
+        if (backpressure == Backpressure.DROP_OLDEST) {
+            return pendingTicks.poll();
+        }
+        String symbol = pendingSymbols.poll();
+        return symbol == null ? null : latestBySymbol.remove(symbol);
+    }
+
+    private boolean hasPending() {
+        return backpressure == Backpressure.DROP_OLDEST ? !pendingTicks.isEmpty() : !pendingSymbols.isEmpty();
+    }
+
+    /** Ticks replaced by a newer tick for the same symbol before being handled. */
+    public long getConflatedCount() {
+        return conflatedCount.get();
+    }
+
+    /** Ticks discarded because the bounded queue was full. */
+    public long getDroppedCount() {
+        return droppedCount.get();
     }
 
     public void shutdown() {
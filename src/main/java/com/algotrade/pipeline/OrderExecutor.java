@@ -1,10 +1,64 @@
 package com.algotrade.pipeline;
 
+import com.algotrade.exchange.TradeListener;
 import com.algotrade.model.Order;
 import com.algotrade.model.Trade;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface OrderExecutor {
     List<Trade> executeOrder(Order order);
+
+    /**
+     * Executes an order and pushes each fill to {@code listener} as it happens.
+     * The default adapts {@link #executeOrder(Order)}, passing a null maker;
+     * executors used on the fused path override it so that no result list or
+     * Trade objects are created.
+     *
+     * @return true if the order received at least one fill
+     */
+    default boolean executeOrder(Order order, TradeListener listener) {
+        List<Trade> trades = executeOrder(order);
+        for (int i = 0; i < trades.size(); i++) {
+            Trade trade = trades.get(i);
+            listener.onTrade(trade.getTradeId(), order, null, trade.getPriceTicks(), trade.getQuantity());
+        }
+        return !trades.isEmpty();
+    }
+
+    /**
+     * Executes several orders produced together. Implementations that can
+     * submit a whole batch at once should override this; the default simply
+     * executes the orders one by one.
+     */
+    default List<Trade> executeOrders(List<Order> orders) {
+        List<Trade> trades = new ArrayList<>();
+        for (Order order : orders) {
+            trades.addAll(executeOrder(order));
+        }
+        return trades;
+    }
+
+    /**
+     * Non-blocking variant for callers that chain on the result. The default runs
+     * {@link #executeOrder} on the calling thread and returns a completed future;
+     * executors talking to a slow venue should complete it when the venue answers.
+     */
+    default CompletableFuture<List<Trade>> executeOrderAsync(Order order) {
+        try {
+            return CompletableFuture.completedFuture(executeOrder(order));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    default CompletableFuture<List<Trade>> executeOrdersAsync(List<Order> orders) {
+        try {
+            return CompletableFuture.completedFuture(executeOrders(orders));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
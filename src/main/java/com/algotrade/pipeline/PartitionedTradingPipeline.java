@@ -0,0 +1,173 @@
+package com.algotrade.pipeline;
+
+import com.algotrade.metrics.LatencyMetrics;
+import com.algotrade.model.MarketData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Runs symbols through N independent lanes so a busy instrument only holds up
+ * the symbols sharing its lane. Each lane is a {@link RingBufferTradingPipeline}
+ * with its own strategy, risk and execution threads, risk manager and executor.
+ * Symbols start on the lane picked by their hash and are moved by
+ * {@link #rebalance()} when lane load becomes uneven.
+ * <p>
+ * Strategies are created per symbol so their state can follow a symbol to another
+ * lane. A symbol only changes lane once none of its ticks are in flight, which
+ * keeps per-symbol ordering through every stage.
+ */
+public class PartitionedTradingPipeline implements MarketDataProcessor {
+    public static final long DEFAULT_REBALANCE_INTERVAL = 100_000;
+    private static final double REBALANCE_THRESHOLD = 1.25; // Busiest lane vs. average
+
+    private final RingBufferTradingPipeline[] lanes;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final Function<String, StrategyProcessor> strategyFactory;
+    private final long rebalanceInterval;
+    private final AtomicLong ticks = new AtomicLong();
+
+    public PartitionedTradingPipeline(int laneCount, Function<String, StrategyProcessor> strategyFactory,
+                                      IntFunction<RiskManager> riskManagerFactory, IntFunction<OrderExecutor> orderExecutorFactory,
+                                      LatencyMetrics latencyMetrics) {
+        this(laneCount, strategyFactory, riskManagerFactory, orderExecutorFactory, latencyMetrics,
+                WaitStrategy.YIELD, DEFAULT_REBALANCE_INTERVAL);
+    }
+
+    /**
+     * @param rebalanceInterval ticks between automatic load checks; 0 leaves rebalancing to explicit calls
+     */
+    public PartitionedTradingPipeline(int laneCount, Function<String, StrategyProcessor> strategyFactory,
+                                      IntFunction<RiskManager> riskManagerFactory, IntFunction<OrderExecutor> orderExecutorFactory,
+                                      LatencyMetrics latencyMetrics, WaitStrategy waitStrategy, long rebalanceInterval) {
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("Lane count must be positive: " + laneCount);
+        }
+        if (rebalanceInterval < 0) {
+            throw new IllegalArgumentException("Rebalance interval must not be negative: " + rebalanceInterval);
+        }
+        this.strategyFactory = strategyFactory;
+        this.rebalanceInterval = rebalanceInterval;
+        this.lanes = new RingBufferTradingPipeline[laneCount];
+        StrategyProcessor routedStrategy = marketData -> routes.get(marketData.getSymbol()).strategy.processMarketData(marketData);
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new RingBufferTradingPipeline(routedStrategy, riskManagerFactory.apply(i), orderExecutorFactory.apply(i),
+                    latencyMetrics, RingBufferTradingPipeline.DEFAULT_BUFFER_SIZE, waitStrategy,
+                    marketData -> routes.get(marketData.getSymbol()).inFlight.decrementAndGet());
+        }
+    }
+
+    @Override
+    public void processMarketData(MarketData marketData) {
+        Route route = routes.computeIfAbsent(marketData.getSymbol(), this::newRoute);
+        synchronized (route) {
+            if (route.lane != route.targetLane && route.inFlight.get() == 0) {
+                route.lane = route.targetLane; // Old lane is drained for this symbol: safe to move
+            }
+            route.inFlight.incrementAndGet();
+            route.ticks++;
+            lanes[route.lane].processMarketData(marketData);
+        }
+        if (rebalanceInterval > 0 && ticks.incrementAndGet() % rebalanceInterval == 0) {
+            rebalance();
+        }
+    }
+
+    private Route newRoute(String symbol) {
+        return new Route(strategyFactory.apply(symbol), Math.floorMod(symbol.hashCode(), lanes.length));
+    }
+
+    /**
+     * Reassigns symbols to lanes by their tick count since the last rebalance,
+     * busiest symbol first onto the least loaded lane. Nothing moves while the
+     * busiest lane is within {@value #REBALANCE_THRESHOLD}x of the average.
+     */
+    public synchronized void rebalance() {
+        List<Route> snapshot = new ArrayList<>(routes.values());
+        long[] loads = new long[snapshot.size()];
+        long[] laneLoads = new long[lanes.length];
+        long total = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            Route route = snapshot.get(i);
+            synchronized (route) {
+                loads[i] = route.ticks;
+                route.ticks = 0;
+                laneLoads[route.targetLane] += loads[i];
+            }
+            total += loads[i];
+        }
+        long busiest = 0;
+        for (long laneLoad : laneLoads) {
+            busiest = Math.max(busiest, laneLoad);
+        }
+        if (total == 0 || busiest <= REBALANCE_THRESHOLD * total / lanes.length) {
+            return;
+        }
+
+        Integer[] byLoad = new Integer[snapshot.size()];
+        for (int i = 0; i < byLoad.length; i++) {
+            byLoad[i] = i;
+        }
+        Arrays.sort(byLoad, Comparator.comparingLong((Integer i) -> loads[i]).reversed());
+        long[] assigned = new long[lanes.length];
+        for (int i : byLoad) {
+            Route route = snapshot.get(i);
+            int lane = route.targetLane; // Stay put unless another lane is strictly less loaded
+            for (int candidate = 0; candidate < lanes.length; candidate++) {
+                if (assigned[candidate] < assigned[lane]) {
+                    lane = candidate;
+                }
+            }
+            assigned[lane] += loads[i];
+            route.targetLane = lane;
+        }
+    }
+
+    /** The lane the symbol's ticks currently go to, or -1 if it has not been seen. */
+    public int getLane(String symbol) {
+        Route route = routes.get(symbol);
+        if (route == null) {
+            return -1;
+        }
+        synchronized (route) {
+            return route.lane;
+        }
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public void shutdown() {
+        for (RingBufferTradingPipeline lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    public void awaitTermination() throws InterruptedException {
+        for (RingBufferTradingPipeline lane : lanes) {
+            lane.awaitTermination();
+        }
+    }
+
+    private static final class Route {
+        final StrategyProcessor strategy;
+        final AtomicLong inFlight = new AtomicLong(); // Published but not yet through execution
+        int lane; // Guarded by this
+        volatile int targetLane;
+        long ticks; // Guarded by this; load since the last rebalance
+
+        Route(StrategyProcessor strategy, int lane) {
+            this.strategy = strategy;
+            this.lane = lane;
+            this.targetLane = lane;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.algotrade.pipeline;
+
+import com.algotrade.logging.Component;
+import com.algotrade.logging.EventLogger;
+import com.algotrade.logging.EventType;
+import com.algotrade.logging.Level;
+import com.algotrade.model.MarketData;
+import com.algotrade.model.Order;
+import com.algotrade.model.Trade;
+
+import java.util.List;
+
+/** Event log records shared by the pipeline implementations; fields are copied, nothing is formatted here. */
+final class PipelineEvents {
+    private PipelineEvents() {
+    }
+
+    static void marketData(EventLogger logger, MarketData marketData) {
+        logger.log(Component.PIPELINE, Level.DEBUG, EventType.MARKET_DATA, marketData.getSymbol(),
+                marketData.getBidPriceTicks(), marketData.getAskPriceTicks(),
+                marketData.getBidQuantity(), marketData.getAskQuantity());
+    }
+
+    static void rejected(EventLogger logger, Order order) {
+        logger.log(Component.RISK, Level.INFO, EventType.ORDER_REJECTED, order.getSymbol(),
+                order.getOrderId(), order.getSide().ordinal(), order.getPriceTicks(), order.getQuantity());
+    }
+
+    static void trade(EventLogger logger, Trade trade) {
+        logger.log(Component.EXECUTION, Level.INFO, EventType.TRADE_EXECUTED, trade.getSymbol(),
+                trade.getTradeId(), trade.getOrderId(), trade.getSide().ordinal(), trade.getPriceTicks(), trade.getQuantity());
+    }
+
+    static void trade(EventLogger logger, long tradeId, Order taker, long priceTicks, long quantity) {
+        logger.log(Component.EXECUTION, Level.INFO, EventType.TRADE_EXECUTED, taker.getSymbol(),
+                tradeId, taker.getOrderId(), taker.getSide().ordinal(), priceTicks, quantity);
+    }
+
+    static void trades(EventLogger logger, List<Trade> trades) {
+        for (int i = 0; i < trades.size(); i++) {
+            trade(logger, trades.get(i));
+        }
+    }
+
+    /** Errors are rare, so the message is built here. */
+    static void error(EventLogger logger, String prefix, Throwable e) {
+        logger.log(Component.PIPELINE, Level.ERROR, EventType.MESSAGE, prefix + e);
+    }
+}
@@ -0,0 +1,198 @@
+package com.algotrade.pipeline;
+
+import com.algotrade.logging.EventLogger;
+import com.algotrade.metrics.LatencyMetrics;
+import com.algotrade.model.MarketData;
+import com.algotrade.model.Order;
+import com.algotrade.model.Trade;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Disruptor-style alternative to {@link TradingPipeline}. Ticks are written into
+ * a preallocated ring of slots and three stage threads (strategy, risk,
+ * execution) follow each other around it, each publishing the sequence it has
+ * finished. A stage only reads its upstream sequence, processes everything
+ * available in one batch and never blocks on a future or hands off through a
+ * queue. The publisher waits only when the ring is full.
+ * <p>
+ * {@link #processMarketData} is meant to be called from one feed thread;
+ * concurrent callers are serialized.
+ */
+public class RingBufferTradingPipeline implements MarketDataProcessor {
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+    private final StrategyProcessor strategyProcessor;
+    private final RiskManager riskManager;
+    private final OrderExecutor orderExecutor;
+    private final LatencyMetrics latencyMetrics;
+    private final WaitStrategy waitStrategy;
+    private final EventLogger logger = EventLogger.getDefault();
+    private final Consumer<MarketData> completionListener;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final Sequence published = new Sequence();
+    private final Sequence strategyDone = new Sequence();
+    private final Sequence riskDone = new Sequence();
+    private final Sequence executionDone = new Sequence();
+    private final Thread[] stageThreads;
+    private long nextSequence; // Guarded by this
+    private volatile boolean running = true;
+
+    public RingBufferTradingPipeline(StrategyProcessor strategyProcessor, RiskManager riskManager, OrderExecutor orderExecutor,
+                                     LatencyMetrics latencyMetrics) {
+        this(strategyProcessor, riskManager, orderExecutor, latencyMetrics, DEFAULT_BUFFER_SIZE, WaitStrategy.YIELD);
+    }
+
+    public RingBufferTradingPipeline(StrategyProcessor strategyProcessor, RiskManager riskManager, OrderExecutor orderExecutor,
+                                     LatencyMetrics latencyMetrics, int bufferSize, WaitStrategy waitStrategy) {
+        this(strategyProcessor, riskManager, orderExecutor, latencyMetrics, bufferSize, waitStrategy, null);
+    }
+
+    /** {@code completionListener} is told on the execution thread when a tick has passed every stage. */
+    RingBufferTradingPipeline(StrategyProcessor strategyProcessor, RiskManager riskManager, OrderExecutor orderExecutor,
+                              LatencyMetrics latencyMetrics, int bufferSize, WaitStrategy waitStrategy,
+                              Consumer<MarketData> completionListener) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a power of two: " + bufferSize);
+        }
+        this.strategyProcessor = strategyProcessor;
+        this.riskManager = riskManager;
+        this.orderExecutor = orderExecutor;
+        this.latencyMetrics = latencyMetrics;
+        this.waitStrategy = waitStrategy;
+        this.completionListener = completionListener;
+        this.slots = new Slot[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = bufferSize - 1;
+
+        this.stageThreads = new Thread[] {
+                stageThread("ring-strategy", -1, published, strategyDone, this::runStrategy),
+                stageThread("ring-risk", 0, strategyDone, riskDone, this::runRisk),
+                stageThread("ring-execution", 1, riskDone, executionDone, this::runExecution)
+        };
+        for (Thread thread : stageThreads) {
+            thread.start();
+        }
+    }
+
+    @Override
+    public synchronized void processMarketData(MarketData marketData) {
+        if (!running) {
+            throw new IllegalStateException("Pipeline is shut down");
+        }
+        long sequence = nextSequence++;
+        int attempt = 0;
+        while (sequence - slots.length > executionDone.get()) { // Ring full: wait for the last stage to free a slot
+            waitStrategy.idle(attempt++);
+        }
+        slots[(int) sequence & mask].marketData = marketData;
+        published.set(sequence);
+    }
+
+    private void runStrategy(Slot slot) {
+        try {
+            slot.orders = strategyProcessor.processMarketData(slot.marketData);
+        } catch (RuntimeException e) {
+            slot.orders = List.of(); // Later stages skip the slot instead of failing on it again
+            throw e;
+        }
+    }
+
+    private void runRisk(Slot slot) {
+        for (Order order : slot.orders) {
+            if (riskManager.checkOrder(order)) {
+                latencyMetrics.recordOrderApproval(order);
+                slot.approvedOrders.add(order);
+            } else {
+                PipelineEvents.rejected(logger, order);
+            }
+        }
+    }
+
+    private void runExecution(Slot slot) {
+        if (!slot.approvedOrders.isEmpty()) {
+            List<Trade> trades = orderExecutor.executeOrders(slot.approvedOrders);
+            PipelineEvents.trades(logger, trades);
+        }
+    }
+
+    private Thread stageThread(String name, int upstreamStage, Sequence upstream, Sequence done, SlotHandler handler) {
+        Thread thread = new Thread(() -> runStage(upstreamStage, upstream, done, handler), name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /** Processes every slot the upstream stage has finished, in sequence order, until shut down and drained. */
+    private void runStage(int upstreamStage, Sequence upstream, Sequence done, SlotHandler handler) {
+        long next = done.get() + 1;
+        int attempt = 0;
+        while (true) {
+            long available = upstream.get();
+            if (available < next) {
+                if (upstreamTerminated(upstreamStage) && upstream.get() < next) {
+                    return; // Upstream can no longer publish and everything it did is processed
+                }
+                waitStrategy.idle(attempt++);
+                continue;
+            }
+            attempt = 0;
+            for (long sequence = next; sequence <= available; sequence++) {
+                Slot slot = slots[(int) sequence & mask];
+                try {
+                    handler.handle(slot);
+                } catch (Exception e) {
+                    PipelineEvents.error(logger, "Error in pipeline: ", e);
+                    slot.approvedOrders.clear(); // Nothing from a failed slot reaches execution
+                }
+                if (done == executionDone) {
+                    if (completionListener != null) {
+                        completionListener.accept(slot.marketData);
+                    }
+                    slot.clear();
+                }
+            }
+            done.set(available); // One release store for the whole batch
+            next = available + 1;
+        }
+    }
+
+    private boolean upstreamTerminated(int upstreamStage) {
+        return upstreamStage < 0 ? !running : !stageThreads[upstreamStage].isAlive();
+    }
+
+    /** Stops accepting ticks; the stages finish what was already published and exit. */
+    public synchronized void shutdown() {
+        running = false;
+    }
+
+    /** Waits for the stages to drain after {@link #shutdown()}. */
+    public void awaitTermination() throws InterruptedException {
+        for (Thread thread : stageThreads) {
+            thread.join();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SlotHandler {
+        void handle(Slot slot);
+    }
+
+    /** Preallocated ring entry; each stage writes its own field, read by the next stage. */
+    private static final class Slot {
+        MarketData marketData;
+        List<Order> orders;
+        final List<Order> approvedOrders = new ArrayList<>();
+
+        void clear() {
+            marketData = null;
+            orders = null;
+            approvedOrders.clear();
+        }
+    }
+}
@@ -2,6 +2,20 @@ package com.algotrade.pipeline;
 
 import com.algotrade.model.Order;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface RiskManager {
     boolean checkOrder(Order order);
+
+    /**
+     * Non-blocking variant of {@link #checkOrder}. The default decides on the
+     * calling thread and returns a completed future.
+     */
+    default CompletableFuture<Boolean> checkOrderAsync(Order order) {
+        try {
+            return CompletableFuture.completedFuture(checkOrder(order));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.algotrade.pipeline;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A stage's progress through the ring: the highest sequence it has finished.
+ * The counter is a plain {@code long} field with padding on both sides, placed
+ * through the class hierarchy because the JVM lays out superclass fields first
+ * and never reorders them across classes, so no other sequence or hot field
+ * shares its cache line.
+ */
+class Sequence extends SequenceRhsPadding {
+    static final long INITIAL = -1L;
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    Sequence() {
+        VALUE.setRelease(this, INITIAL);
+    }
+
+    long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /** Release store: everything written to the slots before is visible to readers of this sequence. */
+    void set(long sequence) {
+        VALUE.setRelease(this, sequence);
+    }
+}
+
+@SuppressWarnings("unused")
+class SequenceLhsPadding {
+    private long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class SequenceValue extends SequenceLhsPadding {
+    long value;
+}
+
+@SuppressWarnings("unused")
+class SequenceRhsPadding extends SequenceValue {
+    private long p9, p10, p11, p12, p13, p14, p15;
+}
@@ -0,0 +1,83 @@
+package com.algotrade.pipeline;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket that refills continuously: {@code permits} tokens per
+ * interval, at most {@code permits} saved up for a burst. Implemented as a
+ * generic cell rate algorithm: the whole state is one theoretical arrival time,
+ * advanced by CAS from {@link System#nanoTime()} when a token is taken, so
+ * there is no refill thread and any number of threads may share a bucket.
+ */
+public class TokenBucket {
+    private final long emissionIntervalNanos; // Time for one token to refill
+    private final long burstToleranceNanos; // How far ahead of the clock the arrival time may run
+    private final AtomicLong theoreticalArrivalNanos;
+    private final LongSupplier nanoClock;
+
+    public TokenBucket(int permits, long intervalMillis) {
+        this(permits, intervalMillis, System::nanoTime);
+    }
+
+    TokenBucket(int permits, long intervalMillis, LongSupplier nanoClock) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + intervalMillis);
+        }
+        this.emissionIntervalNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(intervalMillis) / permits);
+        this.burstToleranceNanos = emissionIntervalNanos * permits;
+        this.nanoClock = nanoClock;
+        this.theoreticalArrivalNanos = new AtomicLong(nanoClock.getAsLong()); // Starts full
+    }
+
+    /** Takes a token if one is available; never blocks. */
+    public boolean tryAcquire() {
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long arrival = theoreticalArrivalNanos.get();
+            long next = Math.max(arrival, now) + emissionIntervalNanos;
+            if (next - now > burstToleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrivalNanos.compareAndSet(arrival, next)) {
+                return true;
+            }
+        }
+    }
+
+    /** Gives back a token taken by {@link #tryAcquire()} but not used; the bucket never exceeds its burst. */
+    public void release() {
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long arrival = theoreticalArrivalNanos.get();
+            if (arrival - now <= 0) {
+                return; // Already full
+            }
+            if (theoreticalArrivalNanos.compareAndSet(arrival, Math.max(arrival - emissionIntervalNanos, now))) {
+                return;
+            }
+        }
+    }
+
+    /** Tokens that could be taken right now. */
+    public int availablePermits() {
+        long ahead = Math.max(0, theoreticalArrivalNanos.get() - nanoClock.getAsLong());
+        return (int) ((burstToleranceNanos - ahead) / emissionIntervalNanos);
+    }
+
+    /** Nanoseconds until the next token is available, 0 if one is available now. */
+    public long nanosUntilAvailable() {
+        return nanosUntilAvailable(0);
+    }
+
+    /** Nanoseconds until a token is available once {@code ahead} more have been taken first. */
+    public long nanosUntilAvailable(int ahead) {
+        long now = nanoClock.getAsLong();
+        long next = Math.max(theoreticalArrivalNanos.get(), now) + (ahead + 1L) * emissionIntervalNanos;
+        return Math.max(0, next - now - burstToleranceNanos);
+    }
+}
@@ -4,15 +4,27 @@ import com.algotrade.metrics.LatencyMetrics;
 import com.algotrade.metrics.TradeMetrics;
 import com.algotrade.model.MarketData;
 import com.algotrade.model.Order;
-import com.algotrade.model.Trade;
 import com.algotrade.exchange.Exchange;
+import com.algotrade.exchange.TradeListener;
+import com.algotrade.logging.EventLogger;
+import com.algotrade.util.ThreadMode;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TradingPipeline implements MarketDataProcessor {
+    /** How a tick travels through strategy, risk and execution. */
+    public enum Mode {
+        /** One executor per stage with futures between them: highest throughput. */
+        STAGED,
+        /** All stages in sequence on the thread delivering the tick: no queues or futures, lowest latency. */
+        FUSED
+    }
+
     private final StrategyProcessor strategyProcessor;
     private final RiskManager riskManager;
     private final OrderExecutor orderExecutor;
@@ -23,8 +35,19 @@ public class TradingPipeline implements MarketDataProcessor {
     private final ExecutorService strategyExecutor;
     private final ExecutorService riskExecutor;
     private final ExecutorService executionExecutor;
+    private final EventLogger logger = EventLogger.getDefault();
+    private final TradeListener fusedTradeLogger = (tradeId, taker, maker, priceTicks, quantity) ->
+            PipelineEvents.trade(logger, tradeId, taker, priceTicks, quantity); // Created once, reused for every fill
+    private CompletableFuture<Void> executionTail = CompletableFuture.completedFuture(null); // Confined to marketDataExecutor
+    private final Map<String, Mode> symbolModes = new ConcurrentHashMap<>();
+    private volatile Mode defaultMode = Mode.STAGED;
 
     public TradingPipeline(StrategyProcessor strategyProcessor, RiskManager riskManager, OrderExecutor orderExecutor, Exchange exchange, TradeMetrics tradeMetrics, LatencyMetrics latencyMetrics) {
+        this(strategyProcessor, riskManager, orderExecutor, exchange, tradeMetrics, latencyMetrics, ThreadMode.PLATFORM);
+    }
+
+    /** With {@link ThreadMode#VIRTUAL} each stage executor runs on a virtual thread instead of an OS thread. */
+    public TradingPipeline(StrategyProcessor strategyProcessor, RiskManager riskManager, OrderExecutor orderExecutor, Exchange exchange, TradeMetrics tradeMetrics, LatencyMetrics latencyMetrics, ThreadMode threadMode) {
         this.strategyProcessor = strategyProcessor;
         this.riskManager = riskManager;
         this.orderExecutor = orderExecutor;
@@ -32,37 +55,111 @@ public class TradingPipeline implements MarketDataProcessor {
         this.tradeMetrics = tradeMetrics;
         this.latencyMetrics = latencyMetrics;
 
-        this.marketDataExecutor = Executors.newSingleThreadExecutor();
-        this.strategyExecutor = Executors.newSingleThreadExecutor();
-        this.riskExecutor = Executors.newSingleThreadExecutor();
-        this.executionExecutor = Executors.newSingleThreadExecutor();
+        this.marketDataExecutor = threadMode.newSingleThreadExecutor("pipeline-market-data");
+        this.strategyExecutor = threadMode.newSingleThreadExecutor("pipeline-strategy");
+        this.riskExecutor = threadMode.newSingleThreadExecutor("pipeline-risk");
+        this.executionExecutor = threadMode.newSingleThreadExecutor("pipeline-execution");
+    }
+
+    /** Mode for symbols without their own setting. */
+    public void setMode(Mode mode) {
+        defaultMode = mode;
     }
 
+    /**
+     * Overrides the mode for one symbol. Fused symbols run strategy, risk and
+     * execution on the feed thread, so those components must accept calls from it.
+     * Switch while the symbol has no ticks in flight to keep its ticks in order.
+     */
+    public void setMode(String symbol, Mode mode) {
+        symbolModes.put(symbol, mode);
+    }
+
+    public Mode getMode(String symbol) {
+        return symbolModes.getOrDefault(symbol, defaultMode);
+    }
+
+    /**
+     * Chains strategy, risk and execution through {@link CompletableFuture}s on the
+     * stage executors; no stage thread ever blocks waiting for another. Orders are
+     * handed to the executor in tick order, but a slow venue can have many batches
+     * in flight at once.
+     */
     @Override
     public void processMarketData(MarketData marketData) {
+        if (getMode(marketData.getSymbol()) == Mode.FUSED) {
+            processFused(marketData);
+            return;
+        }
         marketDataExecutor.submit(() -> {
-            System.out.println("Processing market data: " + marketData);
-            // 1. Strategy
-            Future<List<Order>> ordersFuture = strategyExecutor.submit(() -> strategyProcessor.processMarketData(marketData));
-            try {
-                List<Order> orders = ordersFuture.get();
-                for (Order order : orders) {
-                    // 2. Risk Check
-                    Future<Boolean> riskCheckFuture = riskExecutor.submit(() -> riskManager.checkOrder(order));
-                    if (riskCheckFuture.get()) {
-                        latencyMetrics.recordOrderCreation(order);
-                        // 3. Execution
-                        executionExecutor.submit(() -> {
-                            List<Trade> trades = orderExecutor.executeOrder(order);
-                            trades.forEach(trade -> System.out.println("Executed Trade: " + trade));
-                        });
-                    } else {
-                        System.out.println("Order rejected by risk manager: " + order);
-                    }
+            PipelineEvents.marketData(logger, marketData);
+            // 1. Strategy, then 2. Risk
+            CompletableFuture<List<Order>> approvedOrders = CompletableFuture
+                    .supplyAsync(() -> strategyProcessor.processMarketData(marketData), strategyExecutor)
+                    .thenComposeAsync(this::checkOrders, riskExecutor);
+            // 3. Execution: submitted after the previous tick's orders, one batch per tick
+            executionTail = executionTail
+                    .thenCombine(approvedOrders, (previous, orders) -> orders)
+                    .thenAcceptAsync(this::executeOrders, executionExecutor)
+                    .exceptionally(e -> {
+                        PipelineEvents.error(logger, "Error in pipeline: ", e);
+                        return null;
+                    });
+        });
+    }
+
+    /**
+     * Strategy, risk and execution back to back on the calling thread; each approved order executes at once.
+     * Fills are pushed straight to a listener created with the pipeline, so with an executor that
+     * implements {@link OrderExecutor#executeOrder(Order, TradeListener)} (see {@link ExchangeOrderExecutor})
+     * nothing is allocated here beyond what the strategy returns.
+     */
+    private void processFused(MarketData marketData) {
+        try {
+            List<Order> orders = strategyProcessor.processMarketData(marketData);
+            for (int i = 0; i < orders.size(); i++) {
+                Order order = orders.get(i);
+                if (!riskManager.checkOrder(order)) {
+                    PipelineEvents.rejected(logger, order);
+                    continue;
+                }
+                latencyMetrics.recordOrderApproval(order);
+                orderExecutor.executeOrder(order, fusedTradeLogger);
+            }
+        } catch (RuntimeException e) {
+            PipelineEvents.error(logger, "Error in pipeline: ", e);
+        }
+    }
+
+    private CompletableFuture<List<Order>> checkOrders(List<Order> orders) {
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            checks.add(riskManager.checkOrderAsync(order));
+        }
+        return CompletableFuture.allOf(checks.toArray(CompletableFuture<?>[]::new)).thenApply(ignored -> {
+            List<Order> approvedOrders = new ArrayList<>(orders.size());
+            for (int i = 0; i < orders.size(); i++) {
+                Order order = orders.get(i);
+                if (checks.get(i).join()) {
+                    latencyMetrics.recordOrderApproval(order);
+                    approvedOrders.add(order);
+                } else {
+                    PipelineEvents.rejected(logger, order);
                 }
-            } catch (Exception e) {
-                System.err.println("Error in pipeline: " + e.getMessage());
-                e.printStackTrace();
+            }
+            return approvedOrders;
+        });
+    }
+
+    private void executeOrders(List<Order> approvedOrders) {
+        if (approvedOrders.isEmpty()) {
+            return;
+        }
+        orderExecutor.executeOrdersAsync(approvedOrders).whenComplete((trades, e) -> {
+            if (e != null) {
+                PipelineEvents.error(logger, "Error executing orders: ", e);
+            } else {
+                PipelineEvents.trades(logger, trades);
             }
         });
     }
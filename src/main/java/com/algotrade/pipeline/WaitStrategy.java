@@ -0,0 +1,43 @@
+package com.algotrade.pipeline;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a ring-buffer stage waits for its upstream sequence to advance. Busy-spin
+ * gives the lowest latency but burns a core per stage; park is the cheapest on
+ * CPU but adds wake-up latency; yield sits in between.
+ */
+public enum WaitStrategy {
+    BUSY_SPIN {
+        @Override
+        void idle(int attempt) {
+            Thread.onSpinWait();
+        }
+    },
+    YIELD {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    },
+    PARK {
+        @Override
+        void idle(int attempt) {
+            if (attempt < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+    private static final long PARK_NANOS = 50_000;
+
+    /** Called repeatedly while nothing is available; {@code attempt} counts calls since the last progress. */
+    abstract void idle(int attempt);
+}
@@ -0,0 +1,248 @@
+package com.algotrade.risk;
+
+import com.algotrade.metrics.TradeMetrics;
+import com.algotrade.model.MarketData;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Prices;
+import com.algotrade.model.Side;
+import com.algotrade.model.SymbolRegistry;
+import com.algotrade.pipeline.RiskManager;
+import com.algotrade.pipeline.TokenBucket;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Every pre-trade rule for every symbol in one pass. Limits live in flat arrays
+ * indexed by a dense index assigned by {@link #addSymbol}, found from the order's
+ * symbol id with one array read, so a check never hashes or compares strings;
+ * rules without a limit cost a comparison. Stateless rules run first, then the order rate token and finally
+ * the position reservation, so a rejected order leaves no state behind.
+ * Rejections are counted per symbol and rule instead of logged.
+ * <p>
+ * Configure symbols and limits before trading starts; checks may then run on
+ * any number of threads. Call {@link #onMarketData} with the ticks the strategy
+ * sees to keep the reference price used by price bands and daily loss current.
+ */
+public class CompositeRiskManager implements RiskManager {
+    /** The rule an order failed. */
+    public enum Rule {
+        PRICE_BAND,
+        ORDER_NOTIONAL,
+        DAILY_LOSS,
+        OPEN_EXPOSURE,
+        ORDER_RATE,
+        MAX_POSITION
+    }
+
+    private static final Rule[] RULES = Rule.values();
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final PositionManager positionManager;
+    private final TradeMetrics tradeMetrics;
+    private final int capacity;
+    private final Map<String, Integer> symbolIndex = new ConcurrentHashMap<>(); // For configuration only
+    private volatile int[] indexBySymbolId = new int[0]; // -1 where the symbol was not added
+    private final int[] symbolIds;
+
+    // Limits, by symbol index
+    private final long[] maxPosition;
+    private final long[] maxOrderNotionalTicks; // Price ticks times quantity
+    private final long[] maxOpenExposure;
+    private final long[] maxDailyLossTicks;
+    private final double[] priceBand; // Allowed distance from the reference price, as a fraction
+    private final TokenBucket[] orderRate;
+
+    // State, by symbol index
+    private final AtomicLongArray referencePriceTicks;
+    private final AtomicLongArray startOfDayEquityTicks;
+    private final AtomicLongArray rejections; // symbol index * rule count + rule ordinal
+    private final LongAdder unknownSymbolRejections = new LongAdder();
+
+    /** {@code positionManager} must listen to the exchange the orders go to, so resting orders keep their reservations. */
+    public CompositeRiskManager(PositionManager positionManager, TradeMetrics tradeMetrics, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.positionManager = positionManager;
+        this.tradeMetrics = tradeMetrics;
+        this.capacity = capacity;
+        this.symbolIds = new int[capacity];
+        this.maxPosition = unlimited(capacity);
+        this.maxOrderNotionalTicks = unlimited(capacity);
+        this.maxOpenExposure = unlimited(capacity);
+        this.maxDailyLossTicks = unlimited(capacity);
+        this.priceBand = new double[capacity];
+        this.orderRate = new TokenBucket[capacity];
+        this.referencePriceTicks = new AtomicLongArray(capacity);
+        this.startOfDayEquityTicks = new AtomicLongArray(capacity);
+        this.rejections = new AtomicLongArray(capacity * RULES.length);
+    }
+
+    /** Registers a symbol with no limits and returns its index; orders for unknown symbols are rejected. */
+    public synchronized int addSymbol(String symbol) {
+        Integer existing = symbolIndex.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        int index = symbolIndex.size();
+        if (index == capacity) {
+            throw new IllegalStateException("Risk manager is full: " + capacity + " symbols");
+        }
+        int symbolId = SymbolRegistry.id(symbol);
+        symbolIds[index] = symbolId;
+        int[] indexes = indexBySymbolId;
+        if (symbolId >= indexes.length) {
+            int oldLength = indexes.length;
+            indexes = Arrays.copyOf(indexes, Math.max(symbolId + 1, oldLength * 2));
+            Arrays.fill(indexes, oldLength, indexes.length, -1);
+        }
+        indexes[symbolId] = index;
+        indexBySymbolId = indexes; // Publishes the slot's limits as well
+        symbolIndex.put(symbol, index);
+        return index;
+    }
+
+    public void setMaxPosition(String symbol, long maxAbsolutePosition) {
+        maxPosition[requireIndex(symbol)] = maxAbsolutePosition;
+    }
+
+    public void setMaxOrderNotional(String symbol, double maxNotional) {
+        maxOrderNotionalTicks[requireIndex(symbol)] = Prices.toTicks(symbol, maxNotional);
+    }
+
+    /**
+     * Limit on the absolute position reached if the order and every approved
+     * order on its side still in flight or resting on the book all fill.
+     */
+    public void setMaxOpenExposure(String symbol, long maxExposure) {
+        maxOpenExposure[requireIndex(symbol)] = maxExposure;
+    }
+
+    /** Limit on the loss since {@link #startNewDay()}, marked to the reference price. */
+    public void setMaxDailyLoss(String symbol, double maxLoss) {
+        maxDailyLossTicks[requireIndex(symbol)] = Prices.toTicks(symbol, maxLoss);
+    }
+
+    /** Rejects limit orders priced further than {@code fraction} from the reference price. */
+    public void setPriceBand(String symbol, double fraction) {
+        priceBand[requireIndex(symbol)] = fraction;
+    }
+
+    public void setOrderRate(String symbol, int permits, long intervalMillis) {
+        orderRate[requireIndex(symbol)] = new TokenBucket(permits, intervalMillis);
+    }
+
+    /** Updates the symbol's reference price to the mid of the tick. */
+    public void onMarketData(MarketData marketData) {
+        int index = indexOf(marketData.getSymbolId());
+        if (index >= 0) {
+            referencePriceTicks.set(index, (marketData.getBidPriceTicks() + marketData.getAskPriceTicks()) / 2);
+        }
+    }
+
+    /** Makes the current marked-to-market equity of every symbol the baseline for daily loss. */
+    public void startNewDay() {
+        for (int i = 0; i < symbolIndex.size(); i++) {
+            startOfDayEquityTicks.set(i, equityTicks(i));
+        }
+    }
+
+    @Override
+    public boolean checkOrder(Order order) {
+        int index = indexOf(order.getSymbolId());
+        if (index < 0) {
+            unknownSymbolRejections.increment();
+            return false;
+        }
+        long quantity = order.getQuantity();
+        long reference = referencePriceTicks.get(index);
+        long price = order.getOrderType() == OrderType.MARKET ? reference : order.getPriceTicks();
+
+        double band = priceBand[index];
+        if (band > 0 && reference > 0 && order.getOrderType() != OrderType.MARKET
+                && Math.abs(price - reference) > reference * band) {
+            return reject(index, Rule.PRICE_BAND);
+        }
+        long notionalLimit = maxOrderNotionalTicks[index];
+        if (notionalLimit != UNLIMITED && price > 0 && quantity > notionalLimit / price) {
+            return reject(index, Rule.ORDER_NOTIONAL);
+        }
+        long lossLimit = maxDailyLossTicks[index];
+        if (lossLimit != UNLIMITED && startOfDayEquityTicks.get(index) - equityTicks(index) > lossLimit) {
+            return reject(index, Rule.DAILY_LOSS);
+        }
+        long exposureLimit = maxOpenExposure[index];
+        if (exposureLimit != UNLIMITED && openExposure(index, order.getSide(), quantity) > exposureLimit) {
+            return reject(index, Rule.OPEN_EXPOSURE);
+        }
+        TokenBucket rate = orderRate[index];
+        if (rate != null && !rate.tryAcquire()) {
+            return reject(index, Rule.ORDER_RATE);
+        }
+        // Always reserve, so execution settles the same way whether or not a limit is set
+        if (!positionManager.tryReserve(order, maxPosition[index])) {
+            if (rate != null) {
+                rate.release();
+            }
+            return reject(index, Rule.MAX_POSITION);
+        }
+        return true;
+    }
+
+    public long getRejectionCount(String symbol, Rule rule) {
+        return rejections.get(requireIndex(symbol) * RULES.length + rule.ordinal());
+    }
+
+    /** Orders rejected because their symbol was never added. */
+    public long getUnknownSymbolRejections() {
+        return unknownSymbolRejections.sum();
+    }
+
+    private boolean reject(int index, Rule rule) {
+        rejections.incrementAndGet(index * RULES.length + rule.ordinal());
+        return false;
+    }
+
+    /**
+     * Worst case on the order's side. Reservations cover each of our orders once,
+     * from approval until it fills or is cancelled, resting included; the book's
+     * open quantity is not added, as it would count resting orders twice and
+     * include other participants' orders.
+     */
+    private long openExposure(int index, Side side, long quantity) {
+        int symbolId = symbolIds[index];
+        long open = positionManager.getReserved(symbolId, side) + quantity;
+        long position = positionManager.getPosition(symbolId);
+        return side == Side.BUY ? position + open : -(position - open);
+    }
+
+    /** Fill cash flow plus the position valued at the reference price. */
+    private long equityTicks(int index) {
+        int symbolId = symbolIds[index];
+        return tradeMetrics.getPnlTicks(symbolId) + positionManager.getPosition(symbolId) * referencePriceTicks.get(index);
+    }
+
+    private int indexOf(int symbolId) {
+        int[] indexes = indexBySymbolId;
+        return symbolId < indexes.length ? indexes[symbolId] : -1;
+    }
+
+    private int requireIndex(String symbol) {
+        Integer index = symbolIndex.get(symbol);
+        if (index == null) {
+            throw new IllegalArgumentException("Symbol not supported: " + symbol);
+        }
+        return index;
+    }
+
+    private static long[] unlimited(int capacity) {
+        long[] limits = new long[capacity];
+        Arrays.fill(limits, UNLIMITED);
+        return limits;
+    }
+}
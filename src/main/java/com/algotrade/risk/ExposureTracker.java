@@ -0,0 +1,101 @@
+package com.algotrade.risk;
+
+import com.algotrade.exchange.OrderEventListener;
+import com.algotrade.model.Order;
+import com.algotrade.model.Side;
+import com.algotrade.model.SymbolRegistry;
+import com.algotrade.util.SymbolSlots;
+
+/**
+ * Open order quantity and notional per symbol and side, kept current from the
+ * book's order events instead of walking the book: an accepted order adds its
+ * quantity, fills and cancels take it away and amends apply the difference, so
+ * resting orders are covered without a separate rest event. Every update and
+ * query is O(1).
+ * <p>
+ * Register it with {@link com.algotrade.exchange.Exchange#addOrderEventListener}
+ * before orders arrive. Each symbol's counters are written only while its book
+ * is held, so plain volatile writes suffice; any thread may read them.
+ */
+public class ExposureTracker implements OrderEventListener {
+    private final PositionManager positionManager;
+    private final SymbolSlots<Slot> slots = new SymbolSlots<>(Slot::new);
+
+    public ExposureTracker(PositionManager positionManager) {
+        this.positionManager = positionManager;
+    }
+
+    @Override
+    public void onOrderAccepted(Order order) {
+        slots.getOrCreate(order.getSymbolId()).add(order.getSide(), order.getQuantity(), order.getPriceTicks());
+    }
+
+    @Override
+    public void onOrderAmended(Order order, long newPriceTicks, long newQuantity) {
+        Slot slot = slots.getOrCreate(order.getSymbolId());
+        slot.add(order.getSide(), -order.getQuantity(), order.getPriceTicks());
+        slot.add(order.getSide(), newQuantity, newPriceTicks);
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+        slots.getOrCreate(order.getSymbolId()).add(order.getSide(), -order.getQuantity(), order.getPriceTicks());
+    }
+
+    @Override
+    public void onTrade(long tradeId, Order takerOrder, Order makerOrder, long priceTicks, long quantity) {
+        // Both sides were accepted, so both stop being open; remove at the price they were added at
+        Slot slot = slots.getOrCreate(takerOrder.getSymbolId());
+        slot.add(takerOrder.getSide(), -quantity, takerOrder.getPriceTicks());
+        slot.add(makerOrder.getSide(), -quantity, makerOrder.getPriceTicks());
+    }
+
+    public long getOpenQuantity(String symbol, Side side) {
+        return getOpenQuantity(SymbolRegistry.find(symbol), side);
+    }
+
+    public long getOpenQuantity(int symbolId, Side side) {
+        Slot slot = slots.get(symbolId);
+        if (slot == null) {
+            return 0;
+        }
+        return side == Side.BUY ? slot.buyQuantity : slot.sellQuantity;
+    }
+
+    /** Sum of price ticks times quantity of the open orders on one side. */
+    public long getOpenNotionalTicks(String symbol, Side side) {
+        Slot slot = slots.get(SymbolRegistry.find(symbol));
+        if (slot == null) {
+            return 0;
+        }
+        return side == Side.BUY ? slot.buyNotionalTicks : slot.sellNotionalTicks;
+    }
+
+    /** The largest absolute position reachable if every open order on one side fills. */
+    public long getWorstCaseExposure(String symbol) {
+        return getWorstCaseExposure(SymbolRegistry.find(symbol));
+    }
+
+    public long getWorstCaseExposure(int symbolId) {
+        long position = positionManager.getPosition(symbolId);
+        return Math.max(Math.abs(position + getOpenQuantity(symbolId, Side.BUY)),
+                Math.abs(position - getOpenQuantity(symbolId, Side.SELL)));
+    }
+
+    private static final class Slot {
+        volatile long buyQuantity;
+        volatile long sellQuantity;
+        volatile long buyNotionalTicks;
+        volatile long sellNotionalTicks;
+
+        void add(Side side, long quantity, long priceTicks) {
+            if (side == Side.BUY) {
+                buyQuantity += quantity;
+                buyNotionalTicks += quantity * priceTicks;
+            } else {
+                sellQuantity += quantity;
+                sellNotionalTicks += quantity * priceTicks;
+            }
+        }
+    }
+}
@@ -1,37 +1,37 @@
 package com.algotrade.risk;
 
+import com.algotrade.logging.Component;
+import com.algotrade.logging.EventLogger;
+import com.algotrade.logging.EventType;
+import com.algotrade.logging.Level;
 import com.algotrade.model.Order;
-import com.algotrade.model.Side;
+import com.algotrade.model.SymbolRegistry;
 import com.algotrade.pipeline.RiskManager;
 
 public class MaxPositionRiskManager implements RiskManager {
     private final PositionManager positionManager;
     private final String symbol;
+    private final int symbolId;
     private final long maxAbsolutePosition;
+    private final EventLogger logger = EventLogger.getDefault();
 
     public MaxPositionRiskManager(PositionManager positionManager, String symbol, long maxAbsolutePosition) {
         this.positionManager = positionManager;
         this.symbol = symbol;
+        this.symbolId = SymbolRegistry.id(symbol);
         this.maxAbsolutePosition = maxAbsolutePosition;
     }
 
     @Override
     public boolean checkOrder(Order order) {
-        if (!order.getSymbol().equals(symbol)) {
+        if (order.getSymbolId() != symbolId) {
             return true; // Not managing this symbol, so approve
         }
 
-        long currentPosition = positionManager.getPosition(symbol);
-        long potentialNewPosition;
-
-        if (order.getSide() == Side.BUY) {
-            potentialNewPosition = currentPosition + order.getQuantity();
-        } else { // SELL
-            potentialNewPosition = currentPosition - order.getQuantity();
-        }
-
-        if (Math.abs(potentialNewPosition) > maxAbsolutePosition) {
-            System.out.println("Risk check failed: Order " + order.getOrderId() + " would exceed max position for " + symbol);
+        // Reserving makes the check atomic with every other order in flight for the symbol
+        if (!positionManager.tryReserve(order, maxAbsolutePosition)) {
+            logger.log(Component.RISK, Level.INFO, EventType.POSITION_LIMIT, symbol, order.getOrderId(),
+                    positionManager.getPosition(symbolId), maxAbsolutePosition);
             return false; // Order would exceed max position
         }
         return true; // Order approved by risk manager
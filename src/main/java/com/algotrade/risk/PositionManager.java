@@ -1,36 +1,212 @@
 package com.algotrade.risk;
 
+import com.algotrade.exchange.OrderEventListener;
 import com.algotrade.model.Order;
 import com.algotrade.model.Side;
+import com.algotrade.model.SymbolRegistry;
+import com.algotrade.util.SymbolSlots;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class PositionManager {
-    private final Map<String, Long> positions;
+/**
+ * Filled positions plus the position reserved by orders that passed pre-trade
+ * risk but have not settled yet. Each symbol has its own primitive counters,
+ * found by {@link SymbolRegistry} id in an array and updated by CAS, so pipelines sharing a manager never take a lock and orders
+ * in flight cannot pass a limit together.
+ * <p>
+ * Life of an order: {@link #tryReserve(Order, long)} at the risk check (or
+ * {@link #track(Order)} without one), then each fill commits its share of the
+ * reservation as position, whether the order fills on arrival or later while
+ * resting. A cancel, or {@link #release(Order)} for an order that is never sent,
+ * frees what is left. Fills and cancels arrive as book events, so register the
+ * manager with {@link com.algotrade.exchange.Exchange#addOrderEventListener};
+ * orders without a reservation are someone else's and are ignored. Use one
+ * manager per exchange, since the reservation is kept on the order itself.
+ */
+public class PositionManager implements OrderEventListener {
+    private final SymbolSlots<Slot> slots;
 
     public PositionManager() {
-        this.positions = new ConcurrentHashMap<>();
+        this.slots = new SymbolSlots<>(Slot::new);
     }
 
-    public synchronized void updatePosition(Order order) {
-        positions.compute(order.getSymbol(), (symbol, quantity) -> {
-            if (quantity == null) {
-                quantity = 0L;
+    /**
+     * Reserves a signed position change (positive buys, negative sells) if the
+     * worst case, filled position plus every reservation on that side, stays
+     * within {@code [-limit, limit]}.
+     */
+    public boolean tryReserve(String symbol, long delta, long limit) {
+        return tryReserve(SymbolRegistry.id(symbol), delta, limit);
+    }
+
+    public boolean tryReserve(int symbolId, long delta, long limit) {
+        Slot slot = slots.getOrCreate(symbolId);
+        AtomicLong reserved = delta >= 0 ? slot.reservedLong : slot.reservedShort;
+        long quantity = Math.abs(delta);
+        while (true) {
+            // Reservation before position: settle moves position first, so this never undercounts
+            long current = reserved.get();
+            long position = slot.position.get();
+            long worstCase = delta >= 0 ? position + current + quantity : -(position - current - quantity);
+            if (worstCase > limit) {
+                return false;
             }
-            if (order.getSide() == Side.BUY) {
-                return quantity + order.getQuantity();
-            } else {
-                return quantity - order.getQuantity();
+            if (reserved.compareAndSet(current, current + quantity)) {
+                return true;
             }
-        });
+        }
+    }
+
+    /** Gives back a reservation made by {@link #tryReserve(String, long, long)}. */
+    public void release(String symbol, long delta) {
+        release(SymbolRegistry.id(symbol), delta);
+    }
+
+    private void release(int symbolId, long delta) {
+        Slot slot = slots.getOrCreate(symbolId);
+        (delta >= 0 ? slot.reservedLong : slot.reservedShort).addAndGet(-Math.abs(delta));
+    }
+
+    /** Applies a fill of {@code filledDelta} and drops the reservation of {@code reservedDelta} it came from. */
+    public void commit(String symbol, long reservedDelta, long filledDelta) {
+        commit(SymbolRegistry.id(symbol), reservedDelta, filledDelta);
+    }
+
+    private void commit(int symbolId, long reservedDelta, long filledDelta) {
+        Slot slot = slots.getOrCreate(symbolId);
+        slot.position.addAndGet(filledDelta);
+        if (reservedDelta != 0) {
+            (reservedDelta > 0 ? slot.reservedLong : slot.reservedShort).addAndGet(-Math.abs(reservedDelta));
+        }
+    }
+
+    /** Reserves the order's full quantity and remembers the reservation on the order. */
+    public boolean tryReserve(Order order, long limit) {
+        long delta = signed(order.getSide(), order.getQuantity());
+        if (!tryReserve(order.getSymbolId(), delta, limit)) {
+            return false;
+        }
+        order.setReservedQuantity(order.getReservedQuantity() + order.getQuantity());
+        return true;
+    }
+
+    /** Reserves the order's full quantity without a limit unless it already holds a reservation, so its fills are counted. */
+    public void track(Order order) {
+        if (order.getReservedQuantity() == 0) {
+            tryReserve(order, Long.MAX_VALUE);
+        }
+    }
+
+    /** Applies the order's fill and frees whatever it had reserved; unfilled quantity no longer counts. */
+    public void settle(Order order, long filledQuantity) {
+        long reserved = order.getReservedQuantity();
+        order.setReservedQuantity(0);
+        commit(order.getSymbolId(), signed(order.getSide(), reserved), signed(order.getSide(), filledQuantity));
+    }
+
+    /** Frees the order's reservation, e.g. when it is throttled or netted away. */
+    public void release(Order order) {
+        long reserved = order.getReservedQuantity();
+        if (reserved != 0) {
+            order.setReservedQuantity(0);
+            release(order.getSymbolId(), signed(order.getSide(), reserved));
+        }
+    }
+
+    /** Frees up to {@code quantity} of the order's reservation, e.g. for the part of it netted away before it was sent. */
+    public void release(Order order, long quantity) {
+        long reserved = order.getReservedQuantity();
+        long released = Math.min(reserved, quantity);
+        if (released > 0) {
+            order.setReservedQuantity(reserved - released);
+            release(order.getSymbolId(), signed(order.getSide(), released));
+        }
+    }
+
+    @Override
+    public void onOrderAccepted(Order order) {
+    }
+
+    /** Resizes the reservation of a tracked order to its new quantity; amends are not limit-checked. */
+    @Override
+    public void onOrderAmended(Order order, long newPriceTicks, long newQuantity) {
+        long reserved = order.getReservedQuantity();
+        if (reserved != 0) {
+            order.setReservedQuantity(newQuantity);
+            Slot slot = slots.getOrCreate(order.getSymbolId());
+            (order.getSide() == Side.BUY ? slot.reservedLong : slot.reservedShort).addAndGet(newQuantity - reserved);
+        }
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+        release(order);
+    }
+
+    @Override
+    public void onTrade(long tradeId, Order takerOrder, Order makerOrder, long priceTicks, long quantity) {
+        fill(takerOrder, quantity);
+        fill(makerOrder, quantity);
+    }
+
+    private void fill(Order order, long quantity) {
+        long reserved = order.getReservedQuantity();
+        if (reserved == 0) {
+            return; // Not tracked here
+        }
+        long consumed = Math.min(reserved, quantity);
+        order.setReservedQuantity(reserved - consumed);
+        commit(order.getSymbolId(), signed(order.getSide(), consumed), signed(order.getSide(), quantity));
+    }
+
+    /** Applies the order's whole quantity as filled, without touching reservations. */
+    public void updatePosition(Order order) {
+        slots.getOrCreate(order.getSymbolId()).position.addAndGet(signed(order.getSide(), order.getQuantity()));
     }
 
     public long getPosition(String symbol) {
-        return positions.getOrDefault(symbol, 0L);
+        return getPosition(SymbolRegistry.find(symbol));
     }
 
+    public long getPosition(int symbolId) {
+        Slot slot = slots.get(symbolId);
+        return slot == null ? 0 : slot.position.get();
+    }
+
+    /** Quantity reserved by unsettled orders on one side. */
+    public long getReserved(String symbol, Side side) {
+        return getReserved(SymbolRegistry.find(symbol), side);
+    }
+
+    public long getReserved(int symbolId, Side side) {
+        Slot slot = slots.get(symbolId);
+        if (slot == null) {
+            return 0;
+        }
+        return (side == Side.BUY ? slot.reservedLong : slot.reservedShort).get();
+    }
+
+    /** A copy of every filled position. */
     public Map<String, Long> getAllPositions() {
+        Map<String, Long> positions = new HashMap<>();
+        for (int id = 0; id < slots.length(); id++) {
+            Slot slot = slots.get(id);
+            if (slot != null) {
+                positions.put(SymbolRegistry.symbol(id), slot.position.get());
+            }
+        }
         return positions;
     }
+
+    private static long signed(Side side, long quantity) {
+        return side == Side.BUY ? quantity : -quantity;
+    }
+
+    private static final class Slot {
+        final AtomicLong position = new AtomicLong();
+        final AtomicLong reservedLong = new AtomicLong(); // Buys not yet settled
+        final AtomicLong reservedShort = new AtomicLong(); // Sells not yet settled
+    }
 }
@@ -1,6 +1,7 @@
 package com.algotrade.simulator;
 
 import com.algotrade.exchange.Exchange;
+import com.algotrade.metrics.LatencyHistogram;
 import com.algotrade.metrics.LatencyMetrics;
 import com.algotrade.metrics.TradeMetrics;
 import com.algotrade.pipeline.ExchangeOrderExecutor;
@@ -10,9 +11,9 @@ import com.algotrade.pipeline.TradingPipeline;
 import com.algotrade.risk.MaxPositionRiskManager;
 import com.algotrade.risk.PositionManager;
 import com.algotrade.strategy.MeanReversionStrategy;
+import com.algotrade.util.ThreadMode;
 
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 public class Backtester {
@@ -26,6 +27,7 @@ public class Backtester {
     private final long throttleIntervalMillis;
     private final long marketDataIntervalMillis;
     private final long durationSeconds;
+    private final ThreadMode threadMode;
 
     private Exchange exchange;
     private PositionManager positionManager;
@@ -36,6 +38,10 @@ public class Backtester {
     private ExecutorService marketDataExecutorService;
 
     public Backtester(String symbol, double initialPrice, int lookbackPeriod, double priceThreshold, long orderQuantity, long maxAbsolutePosition, int throttlePermits, long throttleIntervalMillis, long marketDataIntervalMillis, long durationSeconds) {
+        this(symbol, initialPrice, lookbackPeriod, priceThreshold, orderQuantity, maxAbsolutePosition, throttlePermits, throttleIntervalMillis, marketDataIntervalMillis, durationSeconds, ThreadMode.PLATFORM);
+    }
+
+    public Backtester(String symbol, double initialPrice, int lookbackPeriod, double priceThreshold, long orderQuantity, long maxAbsolutePosition, int throttlePermits, long throttleIntervalMillis, long marketDataIntervalMillis, long durationSeconds, ThreadMode threadMode) {
         this.symbol = symbol;
         this.initialPrice = initialPrice;
         this.lookbackPeriod = lookbackPeriod;
@@ -46,10 +52,11 @@ public class Backtester {
         this.throttleIntervalMillis = throttleIntervalMillis;
         this.marketDataIntervalMillis = marketDataIntervalMillis;
         this.durationSeconds = durationSeconds;
+        this.threadMode = threadMode;
     }
 
     public void runBacktest() throws InterruptedException {
-        System.out.println("Starting backtest for " + symbol + "...");
+        System.out.println("Starting backtest for " + symbol + " on " + threadMode + " threads...");
 
         // 1. Initialize Components
         exchange = new Exchange();
@@ -62,12 +69,13 @@ public class Backtester {
         MaxPositionRiskManager riskManager = new MaxPositionRiskManager(positionManager, symbol, maxAbsolutePosition);
         ExchangeOrderExecutor rawOrderExecutor = new ExchangeOrderExecutor(exchange, positionManager, tradeMetrics, latencyMetrics);
         ExecutionThrottler throttledOrderExecutor = new ExecutionThrottler(rawOrderExecutor, throttlePermits, throttleIntervalMillis);
+        throttledOrderExecutor.setDropListener(positionManager::release); // Frees the position reserved by the risk check
 
-        tradingPipeline = new TradingPipeline(strategy, riskManager, throttledOrderExecutor, exchange, tradeMetrics, latencyMetrics);
+        tradingPipeline = new TradingPipeline(strategy, riskManager, throttledOrderExecutor, exchange, tradeMetrics, latencyMetrics, threadMode);
 
         // 2. Market Data Generation
         marketDataGenerator = new MarketDataGenerator(symbol, marketDataIntervalMillis, tradingPipeline::processMarketData, initialPrice);
-        marketDataExecutorService = Executors.newSingleThreadExecutor();
+        marketDataExecutorService = threadMode.newSingleThreadExecutor("market-data-generator");
         marketDataExecutorService.submit(marketDataGenerator);
 
         // 3. Run for specified duration
@@ -83,6 +91,11 @@ public class Backtester {
         System.out.println("Final PnL for " + symbol + ": " + tradeMetrics.getPnl(symbol));
         System.out.println("Fill Ratio for " + symbol + ": " + tradeMetrics.getFillRatio(symbol));
         System.out.println("Final Position for " + symbol + ": " + positionManager.getPosition(symbol));
+        LatencyHistogram orderToFill = latencyMetrics.getOrderToFill();
+        System.out.println("Order to first fill (us): p50=" + orderToFill.getValueAtPercentile(50) / 1000
+                + " p99=" + orderToFill.getValueAtPercentile(99) / 1000
+                + " p99.9=" + orderToFill.getValueAtPercentile(99.9) / 1000
+                + " max=" + orderToFill.getMax() / 1000);
     }
 
     public static void main(String[] args) throws InterruptedException {
@@ -96,7 +109,8 @@ public class Backtester {
                 5,                  // throttlePermits (for ExecutionThrottler)
                 1000,               // throttleIntervalMillis (for ExecutionThrottler)
                 100,                // marketDataIntervalMillis (for MarketDataGenerator)
-                60                  // durationSeconds
+                60,                 // durationSeconds
+                ThreadMode.configured() // -Dalgotrade.threads=virtual on JDK 21+
         );
         backtester.runBacktest();
     }
@@ -1,9 +1,14 @@
 package com.algotrade.simulator;
 
+import com.algotrade.logging.Component;
+import com.algotrade.logging.EventLogger;
+import com.algotrade.logging.EventType;
+import com.algotrade.logging.Level;
 import com.algotrade.model.MarketData;
 import com.algotrade.pipeline.MarketDataProcessor;
 import okhttp3.*;
 import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -16,6 +21,8 @@ public class LiveMarketDataProvider implements Runnable {
     private final MarketDataProcessor pipeline;
     private WebSocket webSocket;
     private final OkHttpClient client;
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final EventLogger logger = EventLogger.getDefault();
 
     public LiveMarketDataProvider(String symbol, MarketDataProcessor pipeline) {
         this.symbol = symbol;
@@ -35,7 +42,7 @@ public class LiveMarketDataProvider implements Runnable {
         webSocket = client.newWebSocket(request, new WebSocketListener() {
             @Override
             public void onOpen(WebSocket webSocket, Response response) {
-                System.out.println("Connected to Binance WS: " + streamName + "@ticker");
+                logger.log(Component.FEED, Level.INFO, EventType.MESSAGE, "Connected to Binance WS: " + streamName + "@ticker");
             }
 
             @Override
@@ -50,30 +57,33 @@ public class LiveMarketDataProvider implements Runnable {
                         long bidQty = Math.round(Double.parseDouble(bidQtyStr));
                         double ask = Double.parseDouble(askPriceStr);
                         long askQty = Math.round(Double.parseDouble(askQtyStr));
-                        MarketData data = new MarketData(symbol, bid, ask, bidQty, askQty);
+                        MarketData data = MarketData.fromPrices(symbol, bid, ask, bidQty, askQty); // Decimal -> ticks at the feed edge
                         pipeline.processMarketData(data);
-                        System.out.println("Live: " + data);
+                        logger.log(Component.FEED, Level.DEBUG, EventType.MARKET_DATA, symbol, data.getBidPriceTicks(), data.getAskPriceTicks(),
+                                data.getBidQuantity(), data.getAskQuantity());
                     }
                 } catch (Exception e) {
-                    System.err.println("Parse error: " + e.getMessage() + " | Sample: " + text.substring(0, Math.min(100, text.length())));
+                    logger.log(Component.FEED, Level.WARN, EventType.MESSAGE, "Parse error: " + e.getMessage() + " | Sample: " + text.substring(0, Math.min(100, text.length())));
                 }
             }
 
             @Override
             public void onFailure(WebSocket webSocket, Throwable t, Response response) {
-                System.err.println("WS failure: " + t.getMessage());
+                logger.log(Component.FEED, Level.ERROR, EventType.MESSAGE, "WS failure: " + t.getMessage());
                 // Reconnect logic could be added here
+                closed.countDown();
             }
 
             @Override
             public void onClosed(WebSocket webSocket, int code, String reason) {
-                System.out.println("WS closed: " + code + " " + reason);
+                logger.log(Component.FEED, Level.INFO, EventType.MESSAGE, "WS closed: " + code + " " + reason);
+                closed.countDown();
             }
         });
 
-        // Block until interrupted
+        // Wait for the socket to close; on a virtual thread this does not hold an OS thread
         try {
-            Thread.sleep(Long.MAX_VALUE);
+            closed.await();
         } catch (InterruptedException e) {
             shutdown();
         }
@@ -84,6 +94,7 @@ public class LiveMarketDataProvider implements Runnable {
             webSocket.close(1000, "Shutdown");
         }
         client.dispatcher().executorService().shutdown();
+        closed.countDown();
     }
 
     public static String extractJsonField(String json, String key) {
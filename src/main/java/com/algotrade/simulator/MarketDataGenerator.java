@@ -39,7 +39,7 @@ public class MarketDataGenerator implements Runnable {
                 long bidQuantity = 100 + random.nextInt(500);
                 long askQuantity = 100 + random.nextInt(500);
 
-                MarketData marketData = new MarketData(symbol, currentBid, currentAsk, bidQuantity, askQuantity);
+                MarketData marketData = MarketData.fromPrices(symbol, currentBid, currentAsk, bidQuantity, askQuantity);
                 marketDataConsumer.accept(marketData);
 
                 Thread.sleep(intervalMillis);
@@ -0,0 +1,150 @@
+package com.algotrade.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map keyed by primitive {@code long}, for id-keyed lookups
+ * on hot paths. Keys are never boxed and lookups touch two flat arrays.
+ * Uses linear probing with backward-shift deletion, so there are no tombstones.
+ * Values must be non-null. Not thread-safe.
+ */
+public class LongHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] keys;
+    private V[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public LongHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongHashMap(int expectedSize) {
+        allocate(tableSizeFor(Math.max(expectedSize, 4) * 2));
+    }
+
+    public V get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /** @return the previous value for the key, or null */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int index = slot(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(values.length * 2);
+        }
+        return null;
+    }
+
+    /** @return the removed value, or null if the key was absent */
+    public V remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V removed = values[index];
+        values[index] = null;
+        size--;
+        shiftBack(index);
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public void forEachValue(Consumer<? super V> action) {
+        for (V value : values) {
+            if (value != null) {
+                action.accept(value);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        int index = slot(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Moves later entries of the probe chain into the freed slot so lookups never stop early. */
+    private void shiftBack(int freed) {
+        int index = (freed + 1) & mask;
+        while (values[index] != null) {
+            int home = slot(keys[index]);
+            // Move the entry if its home slot is not cyclically within (freed, index]
+            if (((index - home) & mask) >= ((index - freed) & mask)) {
+                keys[freed] = keys[index];
+                values[freed] = values[index];
+                values[index] = null;
+                freed = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential ids
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        V[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = (V[]) new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity / 2;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        return Math.max(size, 8);
+    }
+}
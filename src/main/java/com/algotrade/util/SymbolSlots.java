@@ -0,0 +1,51 @@
+package com.algotrade.util;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Per-symbol state indexed by {@link com.algotrade.model.SymbolRegistry} id.
+ * Lookups are a volatile read and an array access; a slot is created on first
+ * use under a lock and the array is copied when it grows, so readers never lock.
+ */
+public class SymbolSlots<T> {
+    private final Supplier<T> factory;
+    private volatile Object[] slots = new Object[0];
+
+    public SymbolSlots(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /** The slot for {@code symbolId}, or null if it was never created (including for negative ids). */
+    @SuppressWarnings("unchecked")
+    public T get(int symbolId) {
+        Object[] current = slots;
+        return symbolId >= 0 && symbolId < current.length ? (T) current[symbolId] : null;
+    }
+
+    public T getOrCreate(int symbolId) {
+        T slot = get(symbolId);
+        return slot != null ? slot : create(symbolId);
+    }
+
+    /** Number of ids covered; slots below it may still be null. */
+    public int length() {
+        return slots.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized T create(int symbolId) {
+        if (symbolId < 0) {
+            throw new IllegalArgumentException("Unknown symbol id: " + symbolId);
+        }
+        Object[] current = slots;
+        if (symbolId < current.length && current[symbolId] != null) {
+            return (T) current[symbolId];
+        }
+        Object[] grown = Arrays.copyOf(current, Math.max(current.length, Math.max(symbolId + 1, current.length * 2)));
+        T slot = factory.get();
+        grown[symbolId] = slot;
+        slots = grown;
+        return slot;
+    }
+}
@@ -0,0 +1,81 @@
+package com.algotrade.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Which kind of thread pipeline stages and feed handlers run on. Virtual threads
+ * need JDK 21+; they are created reflectively so the code still builds for the
+ * Java 17 target (use the {@code jdk21} Maven profile to compile for 21).
+ * Select with {@code -Dalgotrade.threads=virtual}.
+ */
+public enum ThreadMode {
+    PLATFORM,
+    VIRTUAL;
+
+    public static final String PROPERTY = "algotrade.threads";
+
+    private static final ThreadFactory VIRTUAL_FACTORY = lookupVirtualFactory();
+
+    /** The mode named by the {@value #PROPERTY} system property, {@link #PLATFORM} by default. */
+    public static ThreadMode configured() {
+        return valueOf(System.getProperty(PROPERTY, PLATFORM.name()).toUpperCase());
+    }
+
+    public static boolean isVirtualSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    /**
+     * Threads named {@code name-N}.
+     *
+     * @throws IllegalStateException for {@link #VIRTUAL} on a JDK without virtual threads
+     */
+    public ThreadFactory threadFactory(String name) {
+        ThreadFactory base = this == VIRTUAL ? requireVirtual() : Executors.defaultThreadFactory();
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = base.newThread(runnable);
+            thread.setName(name + "-" + counter.incrementAndGet());
+            return thread;
+        };
+    }
+
+    /** One thread working through a FIFO queue, as used for each pipeline stage. */
+    public ExecutorService newSingleThreadExecutor(String name) {
+        return Executors.newSingleThreadExecutor(threadFactory(name));
+    }
+
+    /** A new thread per task, e.g. one per feed subscription. */
+    public ExecutorService newThreadPerTaskExecutor(String name) {
+        if (this == PLATFORM) {
+            return Executors.newCachedThreadPool(threadFactory(name));
+        }
+        try {
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, threadFactory(name));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads need JDK 21 or newer, running on " + Runtime.version(), e);
+        }
+    }
+
+    private static ThreadFactory requireVirtual() {
+        if (VIRTUAL_FACTORY == null) {
+            throw new IllegalStateException("Virtual threads need JDK 21 or newer, running on " + Runtime.version());
+        }
+        return VIRTUAL_FACTORY;
+    }
+
+    private static ThreadFactory lookupVirtualFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
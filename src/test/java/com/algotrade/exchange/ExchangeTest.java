@@ -0,0 +1,68 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeTest {
+
+    private Exchange exchange;
+    private final String SYMBOL = "TESTSYM";
+    private final String OTHER_SYMBOL = "OTHERSYM";
+
+    @BeforeEach
+    void setUp() {
+        exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        exchange.addSymbol(OTHER_SYMBOL);
+    }
+
+    @Test
+    void testBatchMatchesInArrivalOrderPerSymbol() {
+        Order sell = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        Order otherSell = new Order(OTHER_SYMBOL, OrderType.LIMIT, Side.SELL, 5000, 3);
+        Order buy = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 8);
+        Order otherBuy = new Order(OTHER_SYMBOL, OrderType.MARKET, Side.BUY, 0, 3);
+
+        FillBuffer fills = exchange.placeOrders(List.of(sell, otherSell, buy, otherBuy));
+
+        assertEquals(2, fills.size());
+        // Fills are grouped by book in first-seen symbol order
+        assertSame(buy, fills.getTakerOrder(0));
+        assertSame(sell, fills.getMakerOrder(0));
+        assertEquals(5, fills.getQuantity(0));
+        assertSame(otherBuy, fills.getTakerOrder(1));
+        assertEquals(5000, fills.getPriceTicks(1));
+
+        assertEquals(3, exchange.getOrderBook(SYMBOL).getBuyOrders().peek().getQuantity());
+        assertEquals(0, exchange.getOrderBook(OTHER_SYMBOL).getActiveOrderCount());
+    }
+
+    @Test
+    void testBatchWithUnsupportedSymbolIsRejectedBeforeMatching() {
+        Order sell = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        Order unknown = new Order("UNKNOWN", OrderType.LIMIT, Side.BUY, 10000, 5);
+
+        assertThrows(IllegalArgumentException.class, () -> exchange.placeOrders(List.of(sell, unknown)));
+        assertEquals(0, exchange.getOrderBook(SYMBOL).getActiveOrderCount());
+    }
+
+    @Test
+    void testSingleSymbolBatch() {
+        FillBuffer fills = exchange.placeOrders(List.of(
+                new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9900, 2),
+                new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 9900, 1),
+                new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 9800, 4)));
+
+        assertEquals(2, fills.size());
+        assertEquals(9900, fills.getPriceTicks(1)); // Resting bid price, not the aggressive sell limit
+        assertEquals(1, fills.getQuantity(1));
+        assertEquals(3, exchange.getOrderBook(SYMBOL).getSellOrders().peek().getQuantity());
+    }
+}
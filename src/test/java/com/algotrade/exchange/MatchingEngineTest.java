@@ -0,0 +1,111 @@
+package com.algotrade.exchange;
+
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.SequenceIdGenerator;
+import com.algotrade.model.Side;
+import com.algotrade.model.Trade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingEngineTest {
+
+    private MatchingEngine engine;
+    private final String SYMBOL = "TESTSYM";
+
+    @BeforeEach
+    void setUp() {
+        engine = new MatchingEngine(2);
+        engine.addSymbol(SYMBOL);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        engine.shutdown();
+    }
+
+    @Test
+    void testOrdersMatchOnShardThread() throws Exception {
+        engine.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 10)).get(1, TimeUnit.SECONDS);
+        List<Trade> trades = engine.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 4)).get(1, TimeUnit.SECONDS);
+
+        assertEquals(1, trades.size());
+        assertEquals(4, trades.get(0).getQuantity());
+        assertEquals(6L, engine.inspect(SYMBOL, book -> book.getSellOrders().peek().getQuantity()).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testShardTradeIdsDoNotCollideWithExchange() throws Exception {
+        engine.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 1));
+        Trade shardTrade = engine.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1)).get(1, TimeUnit.SECONDS).get(0);
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 1));
+        Trade exchangeTrade = exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1)).get(0);
+
+        assertNotEquals(exchangeTrade.getTradeId(), shardTrade.getTradeId());
+        assertTrue(SequenceIdGenerator.nodeIdOf(shardTrade.getTradeId()) >= MatchingEngine.DEFAULT_FIRST_NODE_ID);
+    }
+
+    @Test
+    void testCancelThroughEngine() throws Exception {
+        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 10);
+        engine.placeOrder(sellOrder);
+
+        assertTrue(engine.cancelOrder(SYMBOL, sellOrder.getOrderId()).get(1, TimeUnit.SECONDS));
+        assertEquals(0, engine.inspect(SYMBOL, OrderBook::getActiveOrderCount).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testUnknownSymbolCompletesExceptionally() {
+        CompletableFuture<List<Trade>> result = engine.placeOrder(new Order("OTHER", OrderType.LIMIT, Side.BUY, 10000, 1));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void testConcurrentProducersAreSerializedPerBook() throws Exception {
+        int producers = 4;
+        int ordersPerProducer = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<CompletableFuture<List<Trade>>> results = new ArrayList<>();
+        List<Future<?>> submissions = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Side side = p % 2 == 0 ? Side.BUY : Side.SELL;
+            submissions.add(executor.submit(() -> {
+                for (int i = 0; i < ordersPerProducer; i++) {
+                    CompletableFuture<List<Trade>> result = engine.placeOrder(new Order(SYMBOL, OrderType.LIMIT, side, 10000, 1));
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            }));
+        }
+        for (Future<?> submission : submissions) {
+            submission.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long filled = 0;
+        for (CompletableFuture<List<Trade>> result : results) {
+            for (Trade trade : result.get(5, TimeUnit.SECONDS)) {
+                filled += trade.getQuantity();
+            }
+        }
+        // Equal buy and sell flow at one price must fully cross with nothing left resting
+        assertEquals(producers / 2 * ordersPerProducer, filled);
+        assertEquals(0, engine.inspect(SYMBOL, OrderBook::getActiveOrderCount).get(1, TimeUnit.SECONDS));
+    }
+}
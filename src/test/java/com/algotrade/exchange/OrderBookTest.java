@@ -7,7 +7,10 @@ import com.algotrade.model.Trade;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,11 +27,11 @@ class OrderBookTest {
     @Test
     void testBuyLimitOrderMatchingSellLimitOrder() {
         // Place a sell limit order first
-        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.0, 10);
+        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 10);
         orderBook.processOrder(sellOrder);
 
         // Place a buy limit order that matches
-        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 5);
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 5);
         List<Trade> trades = orderBook.processOrder(buyOrder);
 
         assertFalse(trades.isEmpty());
@@ -42,11 +45,11 @@ class OrderBookTest {
     @Test
     void testSellLimitOrderMatchingBuyLimitOrder() {
         // Place a buy limit order first
-        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 10);
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 10);
         orderBook.processOrder(buyOrder);
 
         // Place a sell limit order that matches
-        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.0, 5);
+        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
         List<Trade> trades = orderBook.processOrder(sellOrder);
 
         assertFalse(trades.isEmpty());
@@ -59,10 +62,10 @@ class OrderBookTest {
 
     @Test
     void testBuyMarketOrderMatchingSellLimitOrder() {
-        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.0, 10);
+        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 10);
         orderBook.processOrder(sellOrder);
 
-        Order marketBuyOrder = new Order(SYMBOL, OrderType.MARKET, Side.BUY, 0.0, 7);
+        Order marketBuyOrder = new Order(SYMBOL, OrderType.MARKET, Side.BUY, 0, 7);
         List<Trade> trades = orderBook.processOrder(marketBuyOrder);
 
         assertFalse(trades.isEmpty());
@@ -75,10 +78,10 @@ class OrderBookTest {
 
     @Test
     void testSellMarketOrderMatchingBuyLimitOrder() {
-        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 10);
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 10);
         orderBook.processOrder(buyOrder);
 
-        Order marketSellOrder = new Order(SYMBOL, OrderType.MARKET, Side.SELL, 0.0, 7);
+        Order marketSellOrder = new Order(SYMBOL, OrderType.MARKET, Side.SELL, 0, 7);
         List<Trade> trades = orderBook.processOrder(marketSellOrder);
 
         assertFalse(trades.isEmpty());
@@ -91,10 +94,10 @@ class OrderBookTest {
 
     @Test
     void testNoMatchForLimitOrders() {
-        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 101.0, 10);
+        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10100, 10);
         orderBook.processOrder(sellOrder);
 
-        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 5);
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 5);
         List<Trade> trades = orderBook.processOrder(buyOrder);
 
         assertTrue(trades.isEmpty());
@@ -105,11 +108,11 @@ class OrderBookTest {
     @Test
     void testMultipleMatches() {
         // Setup multiple sell orders
-        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.0, 5));
-        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.5, 5));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10050, 5));
 
         // Place a buy order that crosses both
-        Order buyOrder = new Order(SYMBOL, OrderType.MARKET, Side.BUY, 0.0, 10);
+        Order buyOrder = new Order(SYMBOL, OrderType.MARKET, Side.BUY, 0, 10);
         List<Trade> trades = orderBook.processOrder(buyOrder);
 
         assertEquals(2, trades.size());
@@ -125,10 +128,10 @@ class OrderBookTest {
 
     @Test
     void testPartialFillAndRemainingOrder() {
-        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.0, 10);
+        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 10);
         orderBook.processOrder(sellOrder);
 
-        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 15);
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 15);
         List<Trade> trades = orderBook.processOrder(buyOrder);
 
         assertFalse(trades.isEmpty());
@@ -140,4 +143,231 @@ class OrderBookTest {
         assertEquals(5, orderBook.getBuyOrders().peek().getQuantity());
     }
 
+    @Test
+    void testTimePriorityWithinPriceLevel() {
+        Order firstSell = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        Order secondSell = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        orderBook.processOrder(firstSell);
+        orderBook.processOrder(secondSell);
+
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 7);
+        List<Trade> trades = orderBook.processOrder(buyOrder);
+
+        assertEquals(2, trades.size());
+        assertEquals(5, trades.get(0).getQuantity());
+        assertEquals(2, trades.get(1).getQuantity());
+        assertEquals(0, firstSell.getQuantity()); // Oldest order at the level fills first
+        assertEquals(3, secondSell.getQuantity());
+        assertSame(secondSell, orderBook.getSellOrders().peek());
+        assertNull(orderBook.getActiveOrder(firstSell.getOrderId()));
+    }
+
+    @Test
+    void testBestPricesTrackLadder() {
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9900, 5));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9950, 5));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10100, 5));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10050, 5));
+
+        assertEquals(9950, orderBook.getBestBidPrice());
+        assertEquals(10050, orderBook.getBestAskPrice());
+
+        // Sweep the best ask level; the next level becomes best
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10050, 5));
+        assertEquals(10100, orderBook.getBestAskPrice());
+        assertEquals(9950, orderBook.getBestBidPrice());
+
+        // Buy orders come back in price-time priority
+        assertEquals(99.5, orderBook.getBuyOrders().peekFirst().getPrice());
+        assertEquals(99.0, orderBook.getBuyOrders().peekLast().getPrice());
+    }
+
+    @Test
+    void testCancelRestingOrder() {
+        Order first = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        Order middle = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        Order last = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        orderBook.processOrder(first);
+        orderBook.processOrder(middle);
+        orderBook.processOrder(last);
+
+        assertTrue(orderBook.cancelOrder(middle.getOrderId()));
+        assertFalse(orderBook.cancelOrder(middle.getOrderId())); // Already gone
+        assertEquals(2, orderBook.getActiveOrderCount());
+
+        List<Trade> trades = orderBook.processOrder(new Order(SYMBOL, OrderType.MARKET, Side.BUY, 0, 10));
+        assertEquals(2, trades.size());
+        assertEquals(5, middle.getQuantity()); // Cancelled order never traded
+        assertTrue(orderBook.getSellOrders().isEmpty());
+        assertEquals(OrderBook.NO_PRICE, orderBook.getBestAskPrice());
+    }
+
+    @Test
+    void testAmendReduceKeepsPriority() {
+        Order first = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 10);
+        Order second = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 10);
+        orderBook.processOrder(first);
+        orderBook.processOrder(second);
+
+        assertTrue(orderBook.amendOrder(first.getOrderId(), 10000, 4).isEmpty());
+        assertEquals(4, first.getQuantity());
+        assertSame(first, orderBook.getBuyOrders().peek());
+    }
+
+    @Test
+    void testAmendPriceLosesPriorityAndCanCross() {
+        Order first = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 10);
+        Order second = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9900, 10);
+        orderBook.processOrder(first);
+        orderBook.processOrder(second);
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10100, 3));
+
+        // Moving to 99.0 puts the order behind the one already resting there
+        orderBook.amendOrder(first.getOrderId(), 9900, 10);
+        assertSame(second, orderBook.getBuyOrders().peek());
+        assertEquals(9900, orderBook.getBestBidPrice());
+
+        // Moving up through the ask trades like a new order
+        List<Trade> trades = orderBook.amendOrder(second.getOrderId(), 10100, 10);
+        assertEquals(1, trades.size());
+        assertEquals(3, trades.get(0).getQuantity());
+        assertEquals(101.0, trades.get(0).getPrice());
+        assertEquals(10100, orderBook.getBestBidPrice());
+        assertEquals(7, orderBook.getActiveOrder(second.getOrderId()).getQuantity());
+
+        assertThrows(IllegalArgumentException.class, () -> orderBook.amendOrder(-1L, 10000, 1));
+    }
+
+    @Test
+    void testListenerApiReportsFillsIntoReusableBuffer() {
+        Order firstSell = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        Order secondSell = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10050, 5);
+        orderBook.processOrder(firstSell);
+        orderBook.processOrder(secondSell);
+
+        FillBuffer fills = new FillBuffer(1); // Forces the buffer to grow once
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10050, 8);
+        orderBook.processOrder(buyOrder, fills);
+
+        assertEquals(2, fills.size());
+        assertSame(buyOrder, fills.getTakerOrder(0));
+        assertSame(firstSell, fills.getMakerOrder(0));
+        assertEquals(10000, fills.getPriceTicks(0));
+        assertEquals(5, fills.getQuantity(0));
+        assertSame(secondSell, fills.getMakerOrder(1));
+        assertEquals(3, fills.getQuantity(1));
+
+        List<Trade> trades = fills.toTrades();
+        assertEquals(buyOrder.getOrderId(), trades.get(1).getOrderId());
+        assertEquals(fills.getTradeId(1), trades.get(1).getTradeId());
+        assertNotEquals(fills.getTradeId(0), fills.getTradeId(1));
+        assertEquals(Side.BUY, trades.get(1).getSide());
+
+        fills.clear();
+        assertTrue(fills.isEmpty());
+        orderBook.processOrder(new Order(SYMBOL, OrderType.MARKET, Side.BUY, 0, 2), fills);
+        assertEquals(1, fills.size());
+        assertEquals(2, fills.getQuantity(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> fills.getQuantity(1));
+    }
+
+    @Test
+    void testDepthAggregatesPriceLevels() {
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9900, 5));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9900, 3));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9800, 7));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9700, 1));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 4));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 9900, 2)); // Partially fills the 9900 bid level
+
+        DepthSnapshot depth = orderBook.depth(2);
+        assertEquals(2, depth.getBidLevels());
+        assertEquals(9900, depth.getBidPrice(0));
+        assertEquals(6, depth.getBidQuantity(0));
+        assertEquals(2, depth.getBidOrderCount(0));
+        assertEquals(9800, depth.getBidPrice(1));
+        assertEquals(7, depth.getBidQuantity(1));
+        assertEquals(1, depth.getAskLevels());
+        assertEquals(10000, depth.getAskPrice(0));
+        assertEquals(4, depth.getAskQuantity(0));
+    }
+
+    @Test
+    void testDepthListenerReceivesLevelChanges() {
+        List<String> updates = new ArrayList<>();
+        DepthListener listener = (symbol, side, price, quantity) -> updates.add(side + " " + price + " " + quantity);
+        orderBook.addDepthListener(listener);
+
+        Order first = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        Order second = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5);
+        orderBook.processOrder(first);
+        orderBook.processOrder(second);
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 7));
+        orderBook.amendOrder(second.getOrderId(), 10000, 1);
+        orderBook.cancelOrder(second.getOrderId());
+
+        assertEquals(List.of("SELL 10000 5", "SELL 10000 10", "SELL 10000 5", "SELL 10000 3", "SELL 10000 1", "SELL 10000 0"), updates);
+
+        orderBook.removeDepthListener(listener);
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9000, 1));
+        assertEquals(6, updates.size());
+    }
+
+    @Test
+    void testAuctionUncrossesAtMaximumVolumePrice() {
+        orderBook.startAuction();
+        Order marketBuy = new Order(SYMBOL, OrderType.MARKET, Side.BUY, 0, 2);
+        assertTrue(orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10100, 5)).isEmpty());
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 5));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 9900, 4));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 4));
+        orderBook.processOrder(marketBuy);
+        assertEquals(10100, orderBook.getBestBidPrice()); // Crossed until the uncross
+
+        List<Trade> trades = orderBook.uncross();
+
+        assertEquals(8, trades.stream().mapToLong(Trade::getQuantity).sum());
+        assertTrue(trades.stream().allMatch(trade -> trade.getPriceTicks() == 10000));
+        assertEquals(0, marketBuy.getQuantity());
+        assertEquals(1, orderBook.getActiveOrderCount());
+        assertEquals(4, orderBook.getBuyOrders().peek().getQuantity());
+        assertEquals(OrderBook.NO_PRICE, orderBook.getBestAskPrice());
+        assertTrue(orderBook.isAuction());
+    }
+
+    @Test
+    void testScheduledAuctionKeepsRunningAfterFailedUncross() throws InterruptedException {
+        AuctionScheduler scheduler = new AuctionScheduler();
+        CountDownLatch failed = new CountDownLatch(1);
+        CountDownLatch filled = new CountDownLatch(1);
+        scheduler.schedule(orderBook, 20, (tradeId, taker, maker, priceTicks, quantity) -> {
+            if (failed.getCount() > 0) {
+                failed.countDown();
+                throw new IllegalStateException("Listener failure");
+            }
+            filled.countDown();
+        });
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 3));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1));
+        assertTrue(failed.await(1, TimeUnit.SECONDS));
+
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1));
+        assertTrue(filled.await(1, TimeUnit.SECONDS)); // Later uncrosses still run
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testEndAuctionReturnsToContinuousMatching() {
+        orderBook.startAuction();
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 3));
+        orderBook.processOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1));
+        FillBuffer fills = new FillBuffer();
+
+        orderBook.endAuction(fills);
+
+        assertEquals(1, fills.size());
+        assertFalse(orderBook.isAuction());
+        assertEquals(1, orderBook.processOrder(new Order(SYMBOL, OrderType.MARKET, Side.BUY, 0, 2)).size());
+        assertTrue(orderBook.getSellOrders().isEmpty());
+    }
 }
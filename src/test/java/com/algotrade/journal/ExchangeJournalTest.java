@@ -0,0 +1,182 @@
+package com.algotrade.journal;
+
+import com.algotrade.exchange.Exchange;
+import com.algotrade.exchange.OrderBook;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.SequenceIdGenerator;
+import com.algotrade.model.Side;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeJournalTest {
+
+    private final String SYMBOL = "TESTSYM";
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void testReplayRebuildsOrderBook() throws IOException {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        Order restingBuy = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9900, 10);
+        Order cancelledBuy = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9800, 5);
+        Order partiallyFilledSell = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10100, 10);
+        ((SequenceIdGenerator) exchange.getTradeIdGenerator()).advanceTo(41); // Trades before the journal was attached
+        try (ExchangeJournal journal = new ExchangeJournal(journalDir)) {
+            exchange.addOrderEventListener(journal);
+            exchange.placeOrder(restingBuy);
+            exchange.placeOrder(cancelledBuy);
+            exchange.placeOrder(partiallyFilledSell);
+            exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10100, 4));
+            exchange.cancelOrder(SYMBOL, cancelledBuy.getOrderId());
+            exchange.amendOrder(SYMBOL, restingBuy.getOrderId(), 9950, 8);
+            assertEquals(7, journal.getSequence()); // 4 accepts, 1 fill, cancel, amend; symbol definitions take no number
+        }
+
+        Exchange recovered = new Exchange();
+        JournalReplayer replayer = JournalReplayer.recover(journalDir, recovered);
+
+        OrderBook book = recovered.getOrderBook(SYMBOL);
+        assertEquals(2, book.getActiveOrderCount());
+        assertEquals(9950, book.getBestBidPrice());
+        assertEquals(8, book.getActiveOrder(restingBuy.getOrderId()).getQuantity());
+        assertEquals(6, book.getActiveOrder(partiallyFilledSell.getOrderId()).getQuantity());
+        assertNull(book.getActiveOrder(cancelledBuy.getOrderId()));
+        assertEquals(7, replayer.getLastSequence());
+        assertEquals(42, replayer.getMaxTradeId());
+        assertTrue(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 1, 1).getOrderId() > replayer.getMaxOrderId());
+
+        List<Long> tradeIds = new ArrayList<>();
+        recovered.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 9950, 1),
+                (tradeId, taker, maker, priceTicks, quantity) -> tradeIds.add(tradeId));
+        assertEquals(List.of(replayer.getMaxTradeId() + 1), tradeIds);
+    }
+
+    @Test
+    void testSegmentsRollAndSequenceContinuesAfterReopen() throws IOException {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        try (ExchangeJournal journal = new ExchangeJournal(journalDir, 4096, 16)) {
+            exchange.addOrderEventListener(journal);
+            for (int i = 0; i < 200; i++) {
+                exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9000 + i, 1));
+            }
+        }
+        long sequenceAfterReopen;
+        try (ExchangeJournal journal = new ExchangeJournal(journalDir, 4096, 16)) {
+            journal.onOrderCancelled(exchange.getOrderBook(SYMBOL).getBuyOrders().peekFirst());
+            sequenceAfterReopen = journal.getSequence();
+        }
+
+        List<Long> sequences = new ArrayList<>();
+        new JournalReader(journalDir).replay(new JournalHandler() {
+            @Override
+            public void onOrderAccepted(long sequence, String symbol, long orderId, Side side, OrderType orderType,
+                                        long priceTicks, long quantity) {
+                sequences.add(sequence);
+            }
+
+            @Override
+            public void onOrderCancelled(long sequence, String symbol, long orderId) {
+                sequences.add(sequence);
+            }
+        });
+
+        assertEquals(201, sequences.size());
+        for (int i = 1; i < sequences.size(); i++) {
+            assertTrue(sequences.get(i) > sequences.get(i - 1));
+        }
+        assertEquals(sequenceAfterReopen, (long) sequences.get(200));
+    }
+
+    @Test
+    void testReplayReproducesAuctionUncross() throws IOException {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        try (ExchangeJournal journal = new ExchangeJournal(journalDir)) {
+            exchange.addOrderEventListener(journal);
+            exchange.startAuction(SYMBOL);
+            exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 9900, 5));
+            exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10100, 3));
+            exchange.uncross(SYMBOL, (tradeId, taker, maker, priceTicks, quantity) -> { });
+            exchange.placeOrder(new Order(SYMBOL, OrderType.MARKET, Side.BUY, 0, 1));
+        }
+
+        Exchange recovered = new Exchange();
+        JournalReplayer.recover(journalDir, recovered);
+
+        OrderBook book = recovered.getOrderBook(SYMBOL);
+        assertTrue(book.isAuction());
+        assertEquals(2, book.getSellOrders().peek().getQuantity()); // Market buy still waits for the next uncross
+        assertEquals(1, book.uncross().size());
+    }
+
+    @Test
+    void testBooksOnSeparateThreadsAppendWithoutLosingRecords() throws Exception {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        exchange.addSymbol("OTHERSYM");
+        try (ExchangeJournal journal = new ExchangeJournal(journalDir, 4096, 1024, 16)) { // Small ring: appends wait for the writer
+            exchange.addOrderEventListener(journal);
+            Thread other = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    exchange.placeOrder(new Order("OTHERSYM", OrderType.LIMIT, Side.SELL, 10000 + i, 1));
+                }
+            });
+            other.start();
+            for (int i = 0; i < 500; i++) {
+                exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9000 - i, 1));
+            }
+            other.join();
+
+            journal.flush();
+            assertEquals(1000, journal.getSequence());
+            assertEquals(1000, journal.getDurableSequence());
+        }
+
+        Exchange recovered = new Exchange();
+        JournalReplayer.recover(journalDir, recovered);
+        assertEquals(500, recovered.getOrderBook(SYMBOL).getActiveOrderCount());
+        assertEquals(500, recovered.getOrderBook("OTHERSYM").getActiveOrderCount());
+    }
+
+    @Test
+    void testReplayAfterSequenceSkipsEarlierSegments() throws IOException {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        try (ExchangeJournal journal = new ExchangeJournal(journalDir, 4096, 16)) {
+            exchange.addOrderEventListener(journal);
+            for (int i = 0; i < 200; i++) {
+                exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9000 + i, 1));
+            }
+        }
+
+        List<Long> sequences = new ArrayList<>();
+        int[] segmentsRead = new int[1];
+        long last = new JournalReader(journalDir).replay(new JournalHandler() {
+            @Override
+            public void onSymbol(String symbol, double tickSize) {
+                segmentsRead[0]++; // Every segment defines the symbol once
+            }
+
+            @Override
+            public void onOrderAccepted(long sequence, String symbol, long orderId, Side side, OrderType orderType,
+                                        long priceTicks, long quantity) {
+                sequences.add(sequence);
+            }
+        }, 195);
+
+        assertEquals(List.of(196L, 197L, 198L, 199L, 200L), sequences);
+        assertEquals(200, last);
+        assertEquals(1, segmentsRead[0]); // About 80 records per segment: only the last one is opened
+    }
+}
@@ -0,0 +1,75 @@
+package com.algotrade.journal;
+
+import com.algotrade.exchange.Exchange;
+import com.algotrade.exchange.OrderBook;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+import com.algotrade.model.Trade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    private final String SYMBOL = "SNAPSYM"; // Own symbol: the test changes its (global) tick size
+
+    @TempDir
+    Path journalDir;
+
+    @TempDir
+    Path snapshotDir;
+
+    @Test
+    void testRecoverFromSnapshotAndLaterJournalEvents() throws IOException {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL, 0.5);
+        Order first = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 200, 5);
+        Order second = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 200, 5);
+        Order bid = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 190, 7);
+        try (ExchangeJournal journal = new ExchangeJournal(journalDir)) {
+            exchange.addOrderEventListener(journal);
+            exchange.placeOrder(first);
+            exchange.placeOrder(second);
+            exchange.placeOrder(bid);
+
+            SnapshotStore store = new SnapshotStore(snapshotDir);
+            store.write(exchange, journal::getSequence);
+
+            // After the snapshot: partially fill the queue head and cancel the bid
+            exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 200, 3));
+            exchange.cancelOrder(SYMBOL, bid.getOrderId());
+            exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 180, 1));
+        }
+
+        Exchange recovered = new Exchange();
+        JournalReplayer.recover(journalDir, snapshotDir, recovered);
+
+        OrderBook expected = exchange.getOrderBook(SYMBOL);
+        OrderBook actual = recovered.getOrderBook(SYMBOL);
+        assertEquals(ids(expected.getSellOrders()), ids(actual.getSellOrders()));
+        assertEquals(ids(expected.getBuyOrders()), ids(actual.getBuyOrders()));
+        assertEquals(2, actual.getActiveOrder(first.getOrderId()).getQuantity());
+        assertEquals(180, actual.getBestBidPrice());
+
+        // Trade ids continue after the recovered ones
+        List<Trade> trades = recovered.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 200, 1));
+        assertEquals(2, trades.get(0).getTradeId());
+    }
+
+    @Test
+    void testRestoreWithoutSnapshotIsEmpty() throws IOException {
+        assertTrue(new SnapshotStore(snapshotDir).restoreLatest(new Exchange()).isEmpty());
+    }
+
+    private static List<Long> ids(Collection<Order> orders) {
+        return orders.stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,59 @@
+package com.algotrade.logging;
+
+import com.algotrade.model.Side;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventLoggerTest {
+
+    private final String SYMBOL = "TESTSYM";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testEventsAreFormattedAndWrittenInOrder() throws IOException {
+        Path file = tempDir.resolve("events.log");
+        try (EventLogger logger = EventLogger.open(file)) {
+            logger.log(Component.STRATEGY, Level.INFO, EventType.SIGNAL, SYMBOL, Side.BUY.ordinal(), 10050);
+            logger.log(Component.EXECUTION, Level.WARN, EventType.ORDER_THROTTLED, null, 42);
+            logger.log(Component.METRICS, Level.INFO, EventType.ORDER_LATENCY, "order-to-fill", 3, 1200, 5000, 5000, 5100);
+            logger.flush();
+
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(3, lines.size());
+            assertTrue(lines.get(0).endsWith("INFO STRATEGY MeanReversionStrategy: BUY order generated for TESTSYM at 100.5"), lines.get(0));
+            assertTrue(lines.get(1).endsWith("WARN EXECUTION Order throttled: 42"), lines.get(1));
+            assertTrue(lines.get(2).endsWith("INFO METRICS Latency order-to-fill: count=3 p50=1200ns p99=5000ns p99.9=5000ns max=5100ns"), lines.get(2));
+        }
+    }
+
+    @Test
+    void testLevelsAreFilteredPerComponent() throws IOException {
+        Path file = tempDir.resolve("filtered.log");
+        try (EventLogger logger = EventLogger.open(file)) {
+            logger.setLevel(Component.RISK, Level.WARN);
+            logger.setLevel(Component.FEED, Level.DEBUG);
+            assertFalse(logger.isEnabled(Component.RISK, Level.INFO));
+            assertFalse(logger.isEnabled(Component.PIPELINE, Level.DEBUG));
+
+            logger.log(Component.RISK, Level.INFO, EventType.MESSAGE, "risk info");
+            logger.log(Component.RISK, Level.ERROR, EventType.MESSAGE, "risk error");
+            logger.log(Component.FEED, Level.DEBUG, EventType.MESSAGE, "feed debug");
+            logger.log(Component.PIPELINE, Level.DEBUG, EventType.MESSAGE, "pipeline debug");
+            logger.flush();
+
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(0).endsWith("ERROR RISK risk error"));
+            assertTrue(lines.get(1).endsWith("DEBUG FEED feed debug"));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.algotrade.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testPercentilesAreWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000 / 128.0);
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000 / 128.0);
+        assertEquals(9_990_000, histogram.getValueAtPercentile(99.9), 9_990_000 / 128.0);
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+
+        histogram.record(Long.MAX_VALUE); // Clamped, never out of range
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+    }
+
+    @Test
+    void testSnapshotAndResetMovesCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        histogram.record(2_000);
+        LatencyHistogram snapshot = new LatencyHistogram();
+
+        histogram.snapshotAndReset(snapshot);
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(2, snapshot.getCount());
+        assertEquals(100, snapshot.getValueAtPercentile(50)); // Exact below 128 ns
+        assertEquals(2_000, snapshot.getMax());
+
+        histogram.record(300);
+        assertEquals(300, histogram.getMax());
+    }
+}
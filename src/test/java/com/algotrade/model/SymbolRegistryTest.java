@@ -0,0 +1,34 @@
+package com.algotrade.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolRegistryTest {
+
+    @Test
+    void testIdsAreDenseStableAndCarriedByModels() {
+        int first = SymbolRegistry.id("REGSYM1");
+        int second = SymbolRegistry.id("REGSYM2");
+        assertEquals(first + 1, second);
+        assertEquals(first, SymbolRegistry.id("REGSYM1"));
+        assertEquals("REGSYM2", SymbolRegistry.symbol(second));
+
+        assertEquals(first, new Order("REGSYM1", OrderType.LIMIT, Side.BUY, 100, 1).getSymbolId());
+        assertEquals(first, new MarketData("REGSYM1", 99, 101, 1, 1).getSymbolId());
+        assertEquals(second, new Trade(1, 1, "REGSYM2", 100, 1, Side.SELL).getSymbolId());
+    }
+
+    @Test
+    void testTickSizesLiveInRegistry() {
+        assertEquals(SymbolRegistry.UNKNOWN, SymbolRegistry.find("REGSYM_NEVER_USED"));
+        assertEquals(Prices.DEFAULT_TICK_SIZE, Prices.getTickSize("REGSYM_NEVER_USED"));
+        assertEquals(SymbolRegistry.UNKNOWN, SymbolRegistry.find("REGSYM_NEVER_USED")); // Lookups do not register
+
+        Prices.setTickSize("REGSYM3", 0.5);
+        int id = SymbolRegistry.find("REGSYM3");
+        assertEquals(0.5, SymbolRegistry.getTickSize(id));
+        assertEquals(12.5, Prices.toPrice(id, 25));
+        assertThrows(IllegalArgumentException.class, () -> SymbolRegistry.setTickSize(id, 0));
+    }
+}
@@ -1,15 +1,22 @@
 package com.algotrade.pipeline;
 
+import com.algotrade.exchange.Exchange;
+import com.algotrade.metrics.LatencyMetrics;
+import com.algotrade.metrics.TradeMetrics;
 import com.algotrade.model.Order;
 import com.algotrade.model.OrderType;
 import com.algotrade.model.Side;
 import com.algotrade.model.Trade;
+import com.algotrade.risk.PositionManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -36,10 +43,10 @@ class ExecutionThrottlerTest {
     void testOrderExecutionWithinRateLimit() throws InterruptedException {
         // Allow 2 permits per 100ms
         throttler = new ExecutionThrottler(mockDelegateExecutor, 2, 100);
-        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade("trade1", SYMBOL, 100.0, 1, Side.BUY)));
+        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade(1, 1, SYMBOL, 10000, 1, Side.BUY)));
 
-        Order order1 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 1);
-        Order order2 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 1);
+        Order order1 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1);
+        Order order2 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1);
 
         List<Trade> trades1 = throttler.executeOrder(order1);
         List<Trade> trades2 = throttler.executeOrder(order2);
@@ -50,7 +57,7 @@ class ExecutionThrottlerTest {
         verify(mockDelegateExecutor, times(1)).executeOrder(order2);
 
         // Try to execute a third order immediately, it should be throttled
-        Order order3 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 1);
+        Order order3 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1);
         List<Trade> trades3 = throttler.executeOrder(order3);
         assertTrue(trades3.isEmpty());
         verify(mockDelegateExecutor, never()).executeOrder(order3);
@@ -68,10 +75,10 @@ class ExecutionThrottlerTest {
     void testOrderThrottling() throws InterruptedException {
         // Allow 1 permit per 200ms
         throttler = new ExecutionThrottler(mockDelegateExecutor, 1, 200);
-        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade("trade1", SYMBOL, 100.0, 1, Side.BUY)));
+        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade(1, 1, SYMBOL, 10000, 1, Side.BUY)));
 
-        Order order1 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 1);
-        Order order2 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 1);
+        Order order1 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1);
+        Order order2 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1);
 
         List<Trade> trades1 = throttler.executeOrder(order1);
         List<Trade> trades2 = throttler.executeOrder(order2);
@@ -91,11 +98,11 @@ class ExecutionThrottlerTest {
     @Test
     void testMultipleThreadsThrottling() throws InterruptedException {
         throttler = new ExecutionThrottler(mockDelegateExecutor, 2, 500);
-        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade("trade1", SYMBOL, 100.0, 1, Side.BUY)));
+        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade(1, 1, SYMBOL, 10000, 1, Side.BUY)));
 
         AtomicInteger executedOrders = new AtomicInteger(0);
         Runnable task = () -> {
-            Order order = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 1);
+            Order order = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1);
             if (!throttler.executeOrder(order).isEmpty()) {
                 executedOrders.incrementAndGet();
             }
@@ -120,13 +127,13 @@ class ExecutionThrottlerTest {
     @Test
     void testPermitReleaseAfterInterval() throws InterruptedException {
         throttler = new ExecutionThrottler(mockDelegateExecutor, 1, 100);
-        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade("trade1", SYMBOL, 100.0, 1, Side.BUY)));
+        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade(1, 1, SYMBOL, 10000, 1, Side.BUY)));
 
-        Order order1 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 1);
+        Order order1 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1);
         throttler.executeOrder(order1);
         verify(mockDelegateExecutor, times(1)).executeOrder(order1);
 
-        Order order2 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 1);
+        Order order2 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1);
         assertTrue(throttler.executeOrder(order2).isEmpty()); // Throttled
         verify(mockDelegateExecutor, never()).executeOrder(order2);
 
@@ -135,4 +142,160 @@ class ExecutionThrottlerTest {
         assertFalse(throttler.executeOrder(order2).isEmpty()); // Should now execute
         verify(mockDelegateExecutor, times(1)).executeOrder(order2);
     }
+
+    @Test
+    void testPerSymbolLimitWithinGlobalLimit() {
+        throttler = new ExecutionThrottler(mockDelegateExecutor, 3, 1000, 1, 1000);
+        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade(1, 1, SYMBOL, 10000, 1, Side.BUY)));
+
+        assertFalse(throttler.executeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1)).isEmpty());
+        assertTrue(throttler.executeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1)).isEmpty());
+        // The symbol limit refused the second order without using up a global token
+        assertFalse(throttler.executeOrder(new Order("OTHER1", OrderType.LIMIT, Side.BUY, 10000, 1)).isEmpty());
+        assertFalse(throttler.executeOrder(new Order("OTHER2", OrderType.LIMIT, Side.BUY, 10000, 1)).isEmpty());
+        assertTrue(throttler.executeOrder(new Order("OTHER3", OrderType.LIMIT, Side.BUY, 10000, 1)).isEmpty());
+        assertEquals(2, throttler.getThrottledCount());
+    }
+
+    @Test
+    void testSharedBucketLimitsAllThrottlers() {
+        TokenBucket venue = new TokenBucket(2, 1000);
+        ExecutionThrottler lane1 = new ExecutionThrottler(mockDelegateExecutor, List.of(venue), 0, 0);
+        ExecutionThrottler lane2 = new ExecutionThrottler(mockDelegateExecutor, List.of(venue, new TokenBucket(5, 1000)), 0, 0);
+        when(mockDelegateExecutor.executeOrder(any(Order.class))).thenReturn(List.of(new Trade(1, 1, SYMBOL, 10000, 1, Side.BUY)));
+
+        assertFalse(lane1.executeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1)).isEmpty());
+        assertFalse(lane2.executeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1)).isEmpty());
+        assertTrue(lane1.executeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1)).isEmpty());
+        assertTrue(lane2.executeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1)).isEmpty());
+    }
+
+    @Test
+    void testQueuedOrderIsSentWhenTokenRefills() throws Exception {
+        throttler = new ExecutionThrottler(mockDelegateExecutor, List.of(new TokenBucket(1, 100)), 0, 0, 10, 1000);
+        Trade trade = new Trade(1, 1, SYMBOL, 10000, 1, Side.BUY);
+        when(mockDelegateExecutor.executeOrderAsync(any(Order.class))).thenReturn(CompletableFuture.completedFuture(List.of(trade)));
+
+        Order order1 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1);
+        Order order2 = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10100, 1);
+        throttler.executeOrderAsync(order1);
+        CompletableFuture<List<Trade>> queued = throttler.executeOrderAsync(order2);
+        assertEquals(1, throttler.getQueuedCount());
+
+        assertEquals(List.of(trade), queued.get(1, TimeUnit.SECONDS));
+        verify(mockDelegateExecutor, times(1)).executeOrderAsync(order2);
+        assertEquals(0, throttler.getThrottledCount());
+        throttler.shutdown();
+    }
+
+    @Test
+    void testQueuedOrdersAreNettedAndMerged() throws Exception {
+        throttler = new ExecutionThrottler(mockDelegateExecutor, List.of(new TokenBucket(1, 10_000)), 0, 0, 10, 60_000);
+        when(mockDelegateExecutor.executeOrderAsync(any(Order.class))).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 5)); // Takes the only token
+        CompletableFuture<List<Trade>> buy = throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 5));
+        CompletableFuture<List<Trade>> sell = throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10100, 3));
+        CompletableFuture<List<Trade>> sameBuy = throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 2));
+
+        assertTrue(sell.isDone()); // Fully netted against the waiting buy
+        assertEquals(List.of(), sell.get());
+        assertFalse(buy.isDone());
+        assertFalse(sameBuy.isDone());
+        assertEquals(1, throttler.getQueuedCount()); // One buy of 4 left
+        assertEquals(1, throttler.getNettedCount());
+        assertEquals(1, throttler.getMergedCount());
+
+        throttler.shutdown();
+        assertEquals(List.of(), buy.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of(), sameBuy.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testPartlyNettedOrderReleasesNettedReservation() throws Exception {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        PositionManager positionManager = new PositionManager();
+        TokenBucket bucket = new TokenBucket(1, 200);
+        assertTrue(bucket.tryAcquire()); // The next token is ~200 ms away
+        throttler = new ExecutionThrottler(new ExchangeOrderExecutor(exchange, positionManager, new TradeMetrics(), new LatencyMetrics()),
+                List.of(bucket), 0, 0, 10, 1000);
+        throttler.setDropListener(positionManager::release);
+        exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 6)); // Someone else's liquidity
+
+        Order buy = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 10);
+        Order sell = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10100, 4);
+        assertTrue(positionManager.tryReserve(buy, 100));
+        assertTrue(positionManager.tryReserve(sell, 100));
+        CompletableFuture<List<Trade>> buyResult = throttler.executeOrderAsync(buy); // Queued
+        assertEquals(List.of(), throttler.executeOrderAsync(sell).get(1, TimeUnit.SECONDS)); // Netted in full
+        assertEquals(6, positionManager.getReserved(SYMBOL, Side.BUY));
+        assertEquals(0, positionManager.getReserved(SYMBOL, Side.SELL));
+
+        List<Trade> trades = buyResult.get(1, TimeUnit.SECONDS);
+        assertEquals(6, trades.stream().mapToLong(Trade::getQuantity).sum());
+        assertEquals(buy.getOrderId(), trades.get(0).getOrderId()); // Sent as the order the strategy created
+        assertEquals(6, positionManager.getPosition(SYMBOL));
+        assertEquals(0, positionManager.getReserved(SYMBOL, Side.BUY));
+        throttler.shutdown();
+    }
+
+    @Test
+    void testOrderThatWouldMissDeadlineIsDropped() throws Exception {
+        throttler = new ExecutionThrottler(mockDelegateExecutor, List.of(new TokenBucket(1, 10_000)), 0, 0, 10, 50);
+        when(mockDelegateExecutor.executeOrderAsync(any(Order.class))).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1));
+        Order late = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10100, 1);
+        assertEquals(List.of(), throttler.executeOrderAsync(late).get(1, TimeUnit.SECONDS));
+        assertEquals(0, throttler.getQueuedCount());
+        assertEquals(1, throttler.getThrottledCount());
+        verify(mockDelegateExecutor, never()).executeOrderAsync(late);
+        throttler.shutdown();
+    }
+
+    @Test
+    void testDeadlineCountsOrdersQueuedAhead() throws Exception {
+        throttler = new ExecutionThrottler(mockDelegateExecutor, List.of(new TokenBucket(1, 100)), 0, 0, 10, 250);
+        when(mockDelegateExecutor.executeOrderAsync(any(Order.class))).thenReturn(CompletableFuture.completedFuture(List.of()));
+
+        throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1)); // Sent now
+        throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10001, 1)); // Token in ~100 ms
+        throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10002, 1)); // ~200 ms
+        Order fourth = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10003, 1); // ~300 ms: past the deadline
+
+        assertEquals(List.of(), throttler.executeOrderAsync(fourth).get(1, TimeUnit.SECONDS));
+        assertEquals(2, throttler.getQueuedCount());
+        assertEquals(1, throttler.getThrottledCount());
+        throttler.shutdown();
+    }
+
+    @Test
+    void testOrderArrivingWhileQueuedOrderIsSentWaitsBehindIt() throws Exception {
+        throttler = new ExecutionThrottler(mockDelegateExecutor, List.of(new TokenBucket(1, 50)), 0, 0, 10, 1000);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch venue = new CountDownLatch(1);
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        when(mockDelegateExecutor.executeOrderAsync(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            sent.add(order.getPriceTicks());
+            if (order.getPriceTicks() == 10001) { // The drained order is slow to hand over
+                sending.countDown();
+                venue.await(1, TimeUnit.SECONDS);
+            }
+            return CompletableFuture.completedFuture(List.of());
+        });
+
+        throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1));
+        throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10001, 1)); // Queued
+        assertTrue(sending.await(1, TimeUnit.SECONDS));
+        TimeUnit.MILLISECONDS.sleep(60); // A token is free again
+        CompletableFuture<List<Trade>> later = throttler.executeOrderAsync(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10002, 1));
+
+        assertEquals(List.of(10000L, 10001L), sent); // Not sent past the order still being handed over
+        venue.countDown();
+        later.get(1, TimeUnit.SECONDS);
+        assertEquals(List.of(10000L, 10001L, 10002L), sent);
+        throttler.shutdown();
+    }
 }
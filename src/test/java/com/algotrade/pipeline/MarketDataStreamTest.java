@@ -0,0 +1,82 @@
+package com.algotrade.pipeline;
+
+import com.algotrade.model.MarketData;
+import com.algotrade.util.ThreadMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataStreamTest {
+
+    private final String SYMBOL = "TESTSYM";
+    private final String OTHER_SYMBOL = "OTHERSYM";
+
+    @Test
+    void testConflateKeepsLatestTickPerSymbol() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> handled = new CopyOnWriteArrayList<>();
+        MarketDataStream stream = new MarketDataStream(blockingHandler(release, handled), ThreadMode.PLATFORM,
+                MarketDataStream.Backpressure.CONFLATE, 0);
+
+        stream.publishMarketData(tick(SYMBOL, 1)); // Handler blocks on this one
+        awaitHandled(handled, 1);
+        for (long bid = 2; bid <= 5; bid++) {
+            stream.publishMarketData(tick(SYMBOL, bid));
+        }
+        stream.publishMarketData(tick(OTHER_SYMBOL, 100));
+        release.countDown();
+        awaitHandled(handled, 3);
+        stream.shutdown();
+
+        assertEquals(List.of(1L, 5L, 100L), handled);
+        assertEquals(3, stream.getConflatedCount());
+    }
+
+    @Test
+    void testDropOldestBoundsBacklog() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> handled = new CopyOnWriteArrayList<>();
+        MarketDataStream stream = new MarketDataStream(blockingHandler(release, handled), ThreadMode.PLATFORM,
+                MarketDataStream.Backpressure.DROP_OLDEST, 2);
+
+        stream.publishMarketData(tick(SYMBOL, 1));
+        awaitHandled(handled, 1);
+        for (long bid = 2; bid <= 6; bid++) {
+            stream.publishMarketData(tick(SYMBOL, bid));
+        }
+        release.countDown();
+        awaitHandled(handled, 3);
+        stream.shutdown();
+
+        assertEquals(List.of(1L, 5L, 6L), handled);
+        assertEquals(3, stream.getDroppedCount());
+    }
+
+    private static Consumer<MarketData> blockingHandler(CountDownLatch release, List<Long> handled) {
+        return marketData -> {
+            handled.add(marketData.getBidPriceTicks());
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    private static void awaitHandled(List<Long> handled, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (handled.size() < count && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    private static MarketData tick(String symbol, long bid) {
+        return new MarketData(symbol, bid, bid + 1, 1, 1);
+    }
+}
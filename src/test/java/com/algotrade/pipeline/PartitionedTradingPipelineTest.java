@@ -0,0 +1,65 @@
+package com.algotrade.pipeline;
+
+import com.algotrade.metrics.LatencyMetrics;
+import com.algotrade.model.MarketData;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedTradingPipelineTest {
+
+    @Test
+    void testRebalanceSpreadsSymbolsAndKeepsPerSymbolOrder() throws InterruptedException {
+        // Symbols that all hash to lane 0 of 2
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; symbols.size() < 4; i++) {
+            if (Math.floorMod(("SYM" + i).hashCode(), 2) == 0) {
+                symbols.add("SYM" + i);
+            }
+        }
+        Map<String, List<Long>> executed = new ConcurrentHashMap<>();
+        PartitionedTradingPipeline pipeline = new PartitionedTradingPipeline(2,
+                symbol -> marketData -> List.of(new Order(symbol, OrderType.LIMIT, Side.BUY, 10000, marketData.getBidQuantity())),
+                lane -> order -> true,
+                lane -> order -> {
+                    executed.computeIfAbsent(order.getSymbol(), s -> new ArrayList<>()).add(order.getQuantity());
+                    return List.of();
+                },
+                new LatencyMetrics(), WaitStrategy.YIELD, 0);
+
+        for (long tick = 1; tick <= 100; tick++) {
+            for (String symbol : symbols) {
+                pipeline.processMarketData(new MarketData(symbol, 10000, 10001, tick, tick));
+            }
+        }
+        symbols.forEach(symbol -> assertEquals(0, pipeline.getLane(symbol)));
+
+        pipeline.rebalance();
+        TimeUnit.MILLISECONDS.sleep(200); // Let in-flight ticks drain so moves can happen
+        for (long tick = 101; tick <= 200; tick++) {
+            for (String symbol : symbols) {
+                pipeline.processMarketData(new MarketData(symbol, 10000, 10001, tick, tick));
+            }
+        }
+        pipeline.shutdown();
+        pipeline.awaitTermination();
+
+        assertEquals(2, symbols.stream().filter(symbol -> pipeline.getLane(symbol) == 1).count());
+        for (String symbol : symbols) {
+            List<Long> quantities = executed.get(symbol);
+            assertEquals(200, quantities.size());
+            for (int i = 0; i < quantities.size(); i++) {
+                assertEquals(i + 1, quantities.get(i), symbol);
+            }
+        }
+    }
+}
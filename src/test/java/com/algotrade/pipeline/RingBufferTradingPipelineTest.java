@@ -0,0 +1,52 @@
+package com.algotrade.pipeline;
+
+import com.algotrade.metrics.LatencyMetrics;
+import com.algotrade.model.MarketData;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTradingPipelineTest {
+
+    private final String SYMBOL = "TESTSYM";
+
+    @Test
+    void testStagesProcessEveryTickInOrder() throws InterruptedException {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            List<Long> executedQuantities = Collections.synchronizedList(new ArrayList<>());
+            StrategyProcessor strategy = marketData ->
+                    List.of(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, marketData.getBidPriceTicks(), marketData.getBidQuantity()));
+            RiskManager risk = order -> order.getQuantity() % 2 == 0; // Reject odd quantities
+            OrderExecutor executor = order -> {
+                executedQuantities.add(order.getQuantity());
+                return List.of();
+            };
+            // A small ring forces the publisher to wrap around and wait for the stages
+            RingBufferTradingPipeline pipeline = new RingBufferTradingPipeline(strategy, risk, executor, new LatencyMetrics(), 8, waitStrategy);
+
+            for (long i = 1; i <= 200; i++) {
+                pipeline.processMarketData(new MarketData(SYMBOL, 10000, 10001, i, i));
+            }
+            pipeline.shutdown();
+            pipeline.awaitTermination();
+
+            assertEquals(100, executedQuantities.size(), waitStrategy.name());
+            for (int i = 0; i < executedQuantities.size(); i++) {
+                assertEquals(2L * (i + 1), executedQuantities.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testBufferSizeMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new RingBufferTradingPipeline(data -> List.of(), order -> true, order -> List.of(), new LatencyMetrics(), 100, WaitStrategy.PARK));
+    }
+}
@@ -0,0 +1,46 @@
+package com.algotrade.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void testBurstThenSteadyRefill() {
+        TokenBucket bucket = new TokenBucket(4, 100, clock::get); // One token every 25ms
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(25), bucket.nanosUntilAvailable());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(25));
+        assertEquals(1, bucket.availablePermits());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10)); // Idle time saves up at most one burst
+        assertEquals(4, bucket.availablePermits());
+    }
+
+    @Test
+    void testReleaseReturnsTokenButNeverOverfills() {
+        TokenBucket bucket = new TokenBucket(2, 100, clock::get);
+
+        bucket.release();
+        assertEquals(2, bucket.availablePermits());
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        bucket.release();
+        assertTrue(bucket.tryAcquire());
+    }
+}
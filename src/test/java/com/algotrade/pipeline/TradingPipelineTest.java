@@ -0,0 +1,123 @@
+package com.algotrade.pipeline;
+
+import com.algotrade.exchange.Exchange;
+import com.algotrade.metrics.LatencyMetrics;
+import com.algotrade.metrics.TradeMetrics;
+import com.algotrade.model.MarketData;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+import com.algotrade.model.Trade;
+import com.algotrade.risk.PositionManager;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TradingPipelineTest {
+
+    private final String SYMBOL = "TESTSYM";
+
+    @Test
+    void testSlowVenueDoesNotBlockLaterTicks() throws InterruptedException {
+        CountDownLatch venueReplies = new CountDownLatch(1);
+        List<Long> submitted = new CopyOnWriteArrayList<>();
+        OrderExecutor slowVenue = new OrderExecutor() {
+            @Override
+            public List<Trade> executeOrder(Order order) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<List<Trade>> executeOrdersAsync(List<Order> orders) {
+                orders.forEach(order -> submitted.add(order.getQuantity()));
+                // Completes only when the venue "answers"
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        venueReplies.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return List.of();
+                });
+            }
+        };
+        RiskManager asyncRisk = new AsyncRiskManager(order -> order.getQuantity() != 2, Runnable::run);
+        TradingPipeline pipeline = new TradingPipeline(
+                marketData -> List.of(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, marketData.getBidQuantity())),
+                asyncRisk, slowVenue, new Exchange(), new TradeMetrics(), new LatencyMetrics());
+
+        for (long quantity = 1; quantity <= 4; quantity++) {
+            pipeline.processMarketData(new MarketData(SYMBOL, 10000, 10001, quantity, quantity));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (submitted.size() < 3 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        venueReplies.countDown();
+        pipeline.shutdown();
+
+        // All approved batches reached the venue, in tick order, before any of them completed
+        assertEquals(List.of(1L, 3L, 4L), submitted);
+    }
+
+    @Test
+    void testFusedSymbolRunsInlineOnCallingThread() {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        OrderExecutor executor = order -> {
+            threads.add(Thread.currentThread().getName());
+            return List.of();
+        };
+        TradingPipeline pipeline = new TradingPipeline(
+                marketData -> List.of(new Order(marketData.getSymbol(), OrderType.LIMIT, Side.BUY, 10000, 1)),
+                order -> true, executor, new Exchange(), new TradeMetrics(), new LatencyMetrics());
+        pipeline.setMode(SYMBOL, TradingPipeline.Mode.FUSED);
+
+        pipeline.processMarketData(new MarketData(SYMBOL, 10000, 10001, 1, 1));
+
+        // Executed before processMarketData returned, on this thread
+        assertEquals(List.of(Thread.currentThread().getName()), threads);
+        assertEquals(TradingPipeline.Mode.STAGED, pipeline.getMode("OTHERSYM"));
+        pipeline.shutdown();
+    }
+
+    @Test
+    void testFusedPathAllocatesNothingPerOrder() {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 1_000_000));
+        ExchangeOrderExecutor executor = new ExchangeOrderExecutor(exchange, new PositionManager(), new TradeMetrics(), new LatencyMetrics());
+        int ticks = 20_000;
+        List<List<Order>> batches = new ArrayList<>(ticks);
+        for (int i = 0; i < ticks; i++) {
+            batches.add(List.of(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1))); // Fills in full
+        }
+        int[] next = new int[1];
+        TradingPipeline pipeline = new TradingPipeline(marketData -> batches.get(next[0]++),
+                order -> true, executor, exchange, new TradeMetrics(), new LatencyMetrics());
+        pipeline.setMode(TradingPipeline.Mode.FUSED);
+        MarketData tick = new MarketData(SYMBOL, 10000, 10001, 1, 1);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < ticks / 2; i++) { // Warm up: thread locals, slots, class loading
+            pipeline.processMarketData(tick);
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = ticks / 2; i < ticks; i++) {
+            pipeline.processMarketData(tick);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        pipeline.shutdown();
+
+        assertEquals(1_000_000 - ticks, exchange.getOrderBook(SYMBOL).getSellOrders().peek().getQuantity());
+        assertTrue(allocated < ticks / 2, allocated + " bytes allocated for " + ticks / 2 + " orders"); // Under a byte per order: only fixed overhead
+    }
+}
@@ -0,0 +1,114 @@
+package com.algotrade.risk;
+
+import com.algotrade.exchange.Exchange;
+import com.algotrade.metrics.LatencyMetrics;
+import com.algotrade.metrics.TradeMetrics;
+import com.algotrade.model.MarketData;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+import com.algotrade.pipeline.ExchangeOrderExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompositeRiskManagerTest {
+
+    private final String SYMBOL = "TESTSYM";
+    private PositionManager positionManager;
+    private TradeMetrics tradeMetrics;
+    private CompositeRiskManager riskManager;
+
+    @BeforeEach
+    void setUp() {
+        positionManager = new PositionManager();
+        tradeMetrics = new TradeMetrics();
+        riskManager = new CompositeRiskManager(positionManager, tradeMetrics, 4);
+        riskManager.addSymbol(SYMBOL);
+        riskManager.onMarketData(new MarketData(SYMBOL, 9990, 10010, 100, 100)); // Mid 100.00
+    }
+
+    @Test
+    void testOrderWithinAllLimitsReservesPosition() {
+        riskManager.setMaxPosition(SYMBOL, 10);
+        Order order = buy(10000, 10);
+        assertTrue(riskManager.checkOrder(order));
+        assertEquals(10, positionManager.getReserved(SYMBOL, Side.BUY));
+        assertFalse(riskManager.checkOrder(buy(10000, 1)));
+        assertEquals(1, riskManager.getRejectionCount(SYMBOL, CompositeRiskManager.Rule.MAX_POSITION));
+    }
+
+    @Test
+    void testPriceBandAndNotional() {
+        riskManager.setPriceBand(SYMBOL, 0.05);
+        riskManager.setMaxOrderNotional(SYMBOL, 1_000.0);
+
+        assertFalse(riskManager.checkOrder(buy(10600, 1))); // 106.00 is 6% away
+        assertTrue(riskManager.checkOrder(buy(10400, 1)));
+        assertFalse(riskManager.checkOrder(buy(10000, 11))); // 1,100 notional
+        assertTrue(riskManager.checkOrder(buy(10000, 10)));
+
+        assertEquals(1, riskManager.getRejectionCount(SYMBOL, CompositeRiskManager.Rule.PRICE_BAND));
+        assertEquals(1, riskManager.getRejectionCount(SYMBOL, CompositeRiskManager.Rule.ORDER_NOTIONAL));
+    }
+
+    @Test
+    void testOrderRateAndOpenExposure() {
+        riskManager.setOrderRate(SYMBOL, 2, 60_000);
+        riskManager.setMaxOpenExposure(SYMBOL, 5);
+        assertTrue(positionManager.tryReserve(buy(9900, 2), Long.MAX_VALUE)); // Our resting bid
+
+        assertTrue(riskManager.checkOrder(buy(10000, 3)));
+        assertFalse(riskManager.checkOrder(buy(10000, 1))); // 2 resting + 3 in flight + 1, no rate token used
+        assertTrue(riskManager.checkOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 4)));
+        assertFalse(riskManager.checkOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 1))); // Third order in the interval
+
+        assertEquals(1, riskManager.getRejectionCount(SYMBOL, CompositeRiskManager.Rule.OPEN_EXPOSURE));
+        assertEquals(1, riskManager.getRejectionCount(SYMBOL, CompositeRiskManager.Rule.ORDER_RATE));
+    }
+
+    @Test
+    void testRestingOrderCountsOnceTowardsOpenExposure() {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        ExchangeOrderExecutor executor = new ExchangeOrderExecutor(exchange, positionManager, tradeMetrics, new LatencyMetrics());
+        riskManager.setMaxOpenExposure(SYMBOL, 6);
+        exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 9800, 50)); // Someone else's bid
+
+        Order resting = buy(9900, 3);
+        assertTrue(riskManager.checkOrder(resting));
+        executor.executeOrder(resting); // Rests on the book
+
+        assertTrue(riskManager.checkOrder(buy(9900, 3))); // 3 resting + 3 = the limit
+        assertFalse(riskManager.checkOrder(buy(9900, 1)));
+        assertEquals(1, riskManager.getRejectionCount(SYMBOL, CompositeRiskManager.Rule.OPEN_EXPOSURE));
+    }
+
+    @Test
+    void testDailyLossMarkedToReference() {
+        riskManager.setMaxDailyLoss(SYMBOL, 50.0);
+        riskManager.startNewDay();
+        tradeMetrics.recordTrade(SYMBOL, Side.BUY, 10000, 10);
+        positionManager.updatePosition(buy(10000, 10)); // Long 10 at 100.00
+        assertTrue(riskManager.checkOrder(buy(10000, 1)));
+
+        riskManager.onMarketData(new MarketData(SYMBOL, 9390, 9410, 100, 100)); // Mid 94.00: -60
+        assertFalse(riskManager.checkOrder(buy(9400, 1)));
+        assertEquals(1, riskManager.getRejectionCount(SYMBOL, CompositeRiskManager.Rule.DAILY_LOSS));
+
+        riskManager.startNewDay();
+        assertTrue(riskManager.checkOrder(buy(9400, 1)));
+    }
+
+    @Test
+    void testUnknownSymbolIsRejected() {
+        assertFalse(riskManager.checkOrder(new Order("UNKNOWN", OrderType.LIMIT, Side.BUY, 10000, 1)));
+        assertEquals(1, riskManager.getUnknownSymbolRejections());
+        assertThrows(IllegalArgumentException.class, () -> riskManager.setMaxPosition("UNKNOWN", 1));
+    }
+
+    private Order buy(long priceTicks, long quantity) {
+        return new Order(SYMBOL, OrderType.LIMIT, Side.BUY, priceTicks, quantity);
+    }
+}
@@ -0,0 +1,60 @@
+package com.algotrade.risk;
+
+import com.algotrade.exchange.Exchange;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExposureTrackerTest {
+
+    private final String SYMBOL = "TESTSYM";
+    private PositionManager positionManager;
+    private ExposureTracker tracker;
+    private Exchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        positionManager = new PositionManager();
+        tracker = new ExposureTracker(positionManager);
+        exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        exchange.addOrderEventListener(tracker);
+    }
+
+    @Test
+    void testRestingOrdersAreOpenUntilFilledOrCancelled() {
+        Order bid = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 10);
+        Order ask = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10100, 4);
+        exchange.placeOrder(bid);
+        exchange.placeOrder(ask);
+        assertEquals(10, tracker.getOpenQuantity(SYMBOL, Side.BUY));
+        assertEquals(100_000, tracker.getOpenNotionalTicks(SYMBOL, Side.BUY));
+        assertEquals(4, tracker.getOpenQuantity(SYMBOL, Side.SELL));
+
+        exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 9900, 3)); // Fills 3 against the bid
+        assertEquals(7, tracker.getOpenQuantity(SYMBOL, Side.BUY));
+        assertEquals(70_000, tracker.getOpenNotionalTicks(SYMBOL, Side.BUY));
+        assertEquals(4, tracker.getOpenQuantity(SYMBOL, Side.SELL)); // The aggressor filled completely
+
+        exchange.amendOrder(SYMBOL, bid.getOrderId(), 9950, 5);
+        assertEquals(5, tracker.getOpenQuantity(SYMBOL, Side.BUY));
+        assertEquals(49_750, tracker.getOpenNotionalTicks(SYMBOL, Side.BUY));
+
+        exchange.cancelOrder(SYMBOL, ask.getOrderId());
+        assertEquals(0, tracker.getOpenQuantity(SYMBOL, Side.SELL));
+        assertEquals(0, tracker.getOpenNotionalTicks(SYMBOL, Side.SELL));
+    }
+
+    @Test
+    void testWorstCaseExposureIncludesPosition() {
+        positionManager.updatePosition(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 6));
+        exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 3));
+        exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10200, 20));
+
+        assertEquals(14, tracker.getWorstCaseExposure(SYMBOL)); // 6 - 20 on the sell side beats 6 + 3
+    }
+}
@@ -23,46 +23,53 @@ class MaxPositionRiskManagerTest {
 
     @Test
     void testBuyOrderWithinMaxPosition() {
-        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 5);
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 5);
         assertTrue(riskManager.checkOrder(buyOrder));
     }
 
     @Test
     void testBuyOrderExceedsMaxPosition() {
-        positionManager.updatePosition(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 7));
-        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 4); // 7 + 4 = 11, exceeds 10
+        positionManager.updatePosition(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 7));
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 4); // 7 + 4 = 11, exceeds 10
         assertFalse(riskManager.checkOrder(buyOrder));
     }
 
     @Test
     void testSellOrderWithinMaxPosition() {
-        positionManager.updatePosition(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 7)); // Current position +7
-        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.0, 5); // 7 - 5 = 2, within -10 to +10
+        positionManager.updatePosition(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 7)); // Current position +7
+        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5); // 7 - 5 = 2, within -10 to +10
         assertTrue(riskManager.checkOrder(sellOrder));
     }
 
     @Test
     void testSellOrderExceedsMaxPosition() {
-        positionManager.updatePosition(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.0, 7)); // Current position -7
-        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.0, 4); // -7 - 4 = -11, exceeds -10
+        positionManager.updatePosition(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 7)); // Current position -7
+        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 4); // -7 - 4 = -11, exceeds -10
         assertFalse(riskManager.checkOrder(sellOrder));
     }
 
     @Test
     void testOrderForDifferentSymbolIsApproved() {
-        Order buyOrder = new Order("ANOTHER_SYM", OrderType.LIMIT, Side.BUY, 100.0, 15);
+        Order buyOrder = new Order("ANOTHER_SYM", OrderType.LIMIT, Side.BUY, 10000, 15);
         assertTrue(riskManager.checkOrder(buyOrder)); // Should be approved as it's not the managed symbol
     }
 
     @Test
     void testZeroPositionCheck() {
-        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 100.0, 10);
+        Order buyOrder = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 10);
         assertTrue(riskManager.checkOrder(buyOrder));
 
         positionManager.updatePosition(buyOrder);
         assertEquals(10, positionManager.getPosition(SYMBOL));
 
-        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 100.0, 20); // -10 final position, should be allowed.
+        Order sellOrder = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 20); // -10 final position, should be allowed.
         assertTrue(riskManager.checkOrder(sellOrder));
     }
+
+    @Test
+    void testApprovedOrdersInFlightCountTowardLimit() {
+        assertTrue(riskManager.checkOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 6)));
+        // Not filled yet, but 6 + 6 would exceed the limit if both fill
+        assertFalse(riskManager.checkOrder(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 6)));
+    }
 }
@@ -0,0 +1,90 @@
+package com.algotrade.risk;
+
+import com.algotrade.exchange.Exchange;
+import com.algotrade.metrics.LatencyMetrics;
+import com.algotrade.metrics.TradeMetrics;
+import com.algotrade.model.Order;
+import com.algotrade.model.OrderType;
+import com.algotrade.model.Side;
+import com.algotrade.pipeline.ExchangeOrderExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionManagerTest {
+
+    private final String SYMBOL = "TESTSYM";
+    private final PositionManager positionManager = new PositionManager();
+
+    @Test
+    void testReservationLifecycle() {
+        Order buy = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 6);
+        assertTrue(positionManager.tryReserve(buy, 10));
+        assertEquals(6, positionManager.getReserved(SYMBOL, Side.BUY));
+        assertFalse(positionManager.tryReserve(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 5), 10)); // 6 in flight + 5
+
+        positionManager.settle(buy, 4); // Partial fill, rest no longer counts
+        assertEquals(4, positionManager.getPosition(SYMBOL));
+        assertEquals(0, positionManager.getReserved(SYMBOL, Side.BUY));
+
+        Order sell = new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 14);
+        assertTrue(positionManager.tryReserve(sell, 10)); // 4 - 14 = -10
+        positionManager.release(sell);
+        assertEquals(0, positionManager.getReserved(SYMBOL, Side.SELL));
+        assertEquals(4, positionManager.getPosition(SYMBOL));
+    }
+
+    @Test
+    void testConcurrentReservationsNeverPassLimit() throws InterruptedException {
+        AtomicInteger approved = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    if (positionManager.tryReserve(SYMBOL, 1, 100)) {
+                        approved.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(100, approved.get());
+        assertEquals(100, positionManager.getReserved(SYMBOL, Side.BUY));
+    }
+
+    @Test
+    void testRestingOrderKeepsReservationUntilFilledOrCancelled() {
+        Exchange exchange = new Exchange();
+        exchange.addSymbol(SYMBOL);
+        ExchangeOrderExecutor executor = new ExchangeOrderExecutor(exchange, positionManager, new TradeMetrics(), new LatencyMetrics());
+        exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 3));
+
+        Order buy = new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 10);
+        assertTrue(positionManager.tryReserve(buy, 10));
+        executor.executeOrder(buy); // 3 fill, 7 rest on the book
+
+        assertEquals(3, positionManager.getPosition(SYMBOL));
+        assertEquals(7, positionManager.getReserved(SYMBOL, Side.BUY));
+        assertFalse(positionManager.tryReserve(new Order(SYMBOL, OrderType.LIMIT, Side.BUY, 10000, 1), 10)); // 3 + 7 resting + 1
+
+        exchange.placeOrder(new Order(SYMBOL, OrderType.LIMIT, Side.SELL, 10000, 5)); // Hits the resting buy
+        assertEquals(8, positionManager.getPosition(SYMBOL));
+        assertEquals(2, positionManager.getReserved(SYMBOL, Side.BUY));
+
+        exchange.cancelOrder(SYMBOL, buy.getOrderId());
+        assertEquals(8, positionManager.getPosition(SYMBOL));
+        assertEquals(0, positionManager.getReserved(SYMBOL, Side.BUY));
+    }
+}
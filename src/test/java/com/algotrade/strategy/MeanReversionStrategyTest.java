@@ -27,20 +27,20 @@ class MeanReversionStrategyTest {
     @Test
     void testNoOrderBeforeLookbackPeriodFilled() {
         // Not enough data points
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100));
-        List<Order> orders = strategy.processMarketData(new MarketData(SYMBOL, 99.5, 100.5, 100, 100));
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100));
+        List<Order> orders = strategy.processMarketData(new MarketData(SYMBOL, 9950, 10050, 100, 100));
         assertTrue(orders.isEmpty());
     }
 
     @Test
     void testBuyOrderGeneratedWhenPriceIsLow() {
         // Fill history with prices around 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100)); // Mid: 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100)); // Mid: 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100)); // Mid: 100. Avg: 100
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100)); // Mid: 100
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100)); // Mid: 100
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100)); // Mid: 100. Avg: 100
 
         // Price drops significantly below average (100 * (1 - 0.01) = 99)
-        List<Order> orders = strategy.processMarketData(new MarketData(SYMBOL, 97.0, 98.0, 100, 100)); // Ask: 98.0 < 99.0
+        List<Order> orders = strategy.processMarketData(new MarketData(SYMBOL, 9700, 9800, 100, 100)); // Ask: 98.0 < 99.0
 
         assertFalse(orders.isEmpty());
         assertEquals(1, orders.size());
@@ -53,12 +53,12 @@ class MeanReversionStrategyTest {
     @Test
     void testSellOrderGeneratedWhenPriceIsHigh() {
         // Fill history with prices around 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100)); // Mid: 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100)); // Mid: 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100)); // Mid: 100. Avg: 100
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100)); // Mid: 100
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100)); // Mid: 100
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100)); // Mid: 100. Avg: 100
 
         // Price rises significantly above average (100 * (1 + 0.01) = 101)
-        List<Order> orders = strategy.processMarketData(new MarketData(SYMBOL, 102.0, 103.0, 100, 100)); // Bid: 102.0 > 101.0
+        List<Order> orders = strategy.processMarketData(new MarketData(SYMBOL, 10200, 10300, 100, 100)); // Bid: 102.0 > 101.0
 
         assertFalse(orders.isEmpty());
         assertEquals(1, orders.size());
@@ -71,12 +71,12 @@ class MeanReversionStrategyTest {
     @Test
     void testNoOrderWhenPriceIsWithinThreshold() {
         // Fill history with prices around 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100)); // Mid: 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100)); // Mid: 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100)); // Mid: 100. Avg: 100
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100)); // Mid: 100
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100)); // Mid: 100
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100)); // Mid: 100. Avg: 100
 
         // Price is within the threshold (e.g., ask 99.5, bid 100.5, avg 100, threshold 1%)
-        List<Order> orders = strategy.processMarketData(new MarketData(SYMBOL, 98.5, 100.5, 100, 100)); // Ask 100.5 > 99.0, Bid 98.5 < 101.0
+        List<Order> orders = strategy.processMarketData(new MarketData(SYMBOL, 9850, 10050, 100, 100)); // Ask 100.5 > 99.0, Bid 98.5 < 101.0
 
         assertTrue(orders.isEmpty());
     }
@@ -84,12 +84,12 @@ class MeanReversionStrategyTest {
     @Test
     void testStrategyIgnoresOtherSymbols() {
         // Fill history with prices around 100
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100));
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100));
-        strategy.processMarketData(new MarketData(SYMBOL, 99.0, 101.0, 100, 100));
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100));
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100));
+        strategy.processMarketData(new MarketData(SYMBOL, 9900, 10100, 100, 100));
 
         // Provide market data for a different symbol
-        List<Order> orders = strategy.processMarketData(new MarketData("OTHER", 97.0, 98.0, 100, 100));
+        List<Order> orders = strategy.processMarketData(new MarketData("OTHER", 9700, 9800, 100, 100));
         assertTrue(orders.isEmpty());
     }
 }
@@ -0,0 +1,44 @@
+package com.algotrade.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        LongHashMap<String> map = new LongHashMap<>();
+        assertNull(map.put(1L, "one"));
+        assertNull(map.put(2L, "two"));
+        assertEquals("one", map.put(1L, "uno"));
+
+        assertEquals("uno", map.get(1L));
+        assertEquals(2, map.size());
+        assertEquals("two", map.remove(2L));
+        assertNull(map.remove(2L));
+        assertFalse(map.containsKey(2L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomChurn() {
+        LongHashMap<Long> map = new LongHashMap<>(4);
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000); // Small key space forces collisions and deletions inside probe chains
+            if (random.nextBoolean()) {
+                assertEquals(reference.put(key, (long) i), map.put(key, (long) i));
+            } else {
+                assertEquals(reference.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        reference.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+}
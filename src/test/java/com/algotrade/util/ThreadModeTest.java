@@ -0,0 +1,32 @@
+package com.algotrade.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadModeTest {
+
+    @Test
+    void testExecutorsRunOnRequestedThreadKind() throws ExecutionException, InterruptedException {
+        for (ThreadMode mode : ThreadMode.values()) {
+            if (mode == ThreadMode.VIRTUAL && !ThreadMode.isVirtualSupported()) {
+                IllegalStateException e = assertThrows(IllegalStateException.class, () -> mode.newSingleThreadExecutor("stage"));
+                assertTrue(e.getMessage().contains(Runtime.version().toString()));
+                continue;
+            }
+            ExecutorService executor = mode.newSingleThreadExecutor("stage");
+            String name = executor.submit(() -> Thread.currentThread().getName()).get();
+            executor.shutdown();
+            assertEquals("stage-1", name);
+        }
+    }
+
+    @Test
+    void testConfiguredDefaultsToPlatform() {
+        System.clearProperty(ThreadMode.PROPERTY);
+        assertEquals(ThreadMode.PLATFORM, ThreadMode.configured());
+    }
+}